@@ -76,6 +76,17 @@ public class DatabaseInitializer {
                 """);
                 System.out.println("Learning plan topics table created successfully.");
             }
+
+            // Enforce a single like per (user, post) so likes can be inserted idempotently
+            if (tableExists("likes") && !indexExists("likes", "uk_likes_user_post")) {
+                System.out.println("Removing duplicate likes and adding unique index...");
+                jdbcTemplate.execute("""
+                    DELETE l1 FROM likes l1
+                    JOIN likes l2 ON l1.user_id = l2.user_id AND l1.post_id = l2.post_id AND l1.id > l2.id
+                """);
+                jdbcTemplate.execute("ALTER TABLE likes ADD UNIQUE INDEX uk_likes_user_post (user_id, post_id)");
+                System.out.println("Unique index on likes created successfully.");
+            }
             
             System.out.println("Database initialization completed successfully.");
         } catch (Exception e) {
@@ -84,6 +95,21 @@ public class DatabaseInitializer {
         }
     }
     
+    private boolean indexExists(String tableName, String indexName) {
+        try {
+            Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?",
+                Integer.class,
+                tableName,
+                indexName
+            );
+            return count != null && count > 0;
+        } catch (Exception e) {
+            System.err.println("Error checking if index exists: " + e.getMessage());
+            return false;
+        }
+    }
+
     private boolean tableExists(String tableName) {
         try {
             Integer count = jdbcTemplate.queryForObject(
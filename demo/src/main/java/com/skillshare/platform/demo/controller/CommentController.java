@@ -10,8 +10,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import com.skillshare.platform.demo.dto.CommentDTO;
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.request.CommentRequest;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.security.CurrentUser;
 import com.skillshare.platform.demo.service.CommentService;
 
@@ -30,6 +32,16 @@ public class CommentController {
         return ResponseEntity.ok(ApiResponse.success(comments));
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<CommentDTO>>> getCommentsByPostIdByCursor(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<CommentDTO> comments = commentService.getCommentsByPostIdBefore(
+                postId, Cursor.decode(cursor), Cursor.clampSize(size));
+        return ResponseEntity.ok(ApiResponse.success(comments));
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<CommentDTO>> createComment(
             @PathVariable Long postId,
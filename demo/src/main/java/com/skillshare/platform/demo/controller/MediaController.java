@@ -0,0 +1,217 @@
+package com.skillshare.platform.demo.controller;
+
+import com.skillshare.platform.demo.service.FileStorageService;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Serves uploaded files. Bodies are copied file to socket: through Tomcat's sendfile when
+ * the connector supports it, otherwise with {@link FileChannel#transferTo}. Single and
+ * multiple byte ranges are supported for seeking in videos. Content-addressed files never
+ * change under their name and are marked immutable.
+ *
+ * This path is excluded from Spring Security and the JWT filter (see {@code SecurityConfig}).
+ */
+@RestController
+public class MediaController {
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Tomcat request attributes for handing a file region to the connector's sendfile
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final FileStorageService fileStorageService;
+    private final String uploadPathPrefix;
+    private final String cacheControl;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public MediaController(FileStorageService fileStorageService,
+                           @Value("${file.upload-url:uploads}") String uploadUrl,
+                           @Value("${media.cache.max-age-seconds:86400}") long maxAgeSeconds) {
+        this.fileStorageService = fileStorageService;
+        this.uploadPathPrefix = "/" + uploadUrl + "/";
+        this.cacheControl = "public, max-age=" + maxAgeSeconds;
+    }
+
+    @GetMapping("/${file.upload-url:uploads}/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String relativePath = urlPathHelper.getPathWithinApplication(request).substring(uploadPathPrefix.length());
+        Path file = resolve(relativePath);
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long size = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        boolean immutable = fileStorageService.isContentAddressed(relativePath);
+        String fileName = file.getFileName().toString();
+        // Content-addressed names are their own strong validator; other files are never
+        // rewritten in place, so size and modification time identify their content
+        String etag = "\"" + (immutable
+                ? fileName.substring(0, fileName.indexOf('.') >= 0 ? fileName.indexOf('.') : fileName.length())
+                : Long.toHexString(size) + "-" + Long.toHexString(lastModified)) + "\"";
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, immutable ? IMMUTABLE_CACHE_CONTROL : cacheControl);
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        String contentType = MediaTypeFactory.getMediaType(fileName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString();
+        boolean head = "HEAD".equals(request.getMethod());
+
+        List<HttpRange> ranges = requestedRanges(request, etag, lastModified);
+        if (ranges == null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (ranges.isEmpty()) {
+            response.setContentType(contentType);
+            writeRegion(request, response, file, 0, size, head);
+            return;
+        }
+        for (HttpRange range : ranges) {
+            if (range.getRangeStart(size) >= size || range.getRangeStart(size) > range.getRangeEnd(size)) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long start = ranges.get(0).getRangeStart(size);
+            long end = ranges.get(0).getRangeEnd(size);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            writeRegion(request, response, file, start, end - start + 1, head);
+            return;
+        }
+        writeMultipart(response, file, size, contentType, ranges, head);
+    }
+
+    private Path resolve(String relativePath) {
+        // Dot files and directories (in-flight uploads) are never served
+        if (relativePath.isEmpty() || relativePath.startsWith(".") || relativePath.contains("/.")) {
+            return null;
+        }
+        try {
+            Path file = fileStorageService.resolveStoredFile(relativePath);
+            return Files.isRegularFile(file) ? file : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The ranges to serve: empty for the whole file, {@code null} if the Range header cannot
+     * be satisfied. A Range whose If-Range no longer matches the file is ignored.
+     */
+    private static List<HttpRange> requestedRanges(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return List.of();
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            // Any other entity tag is stale; getDateHeader would reject it as a malformed date
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                return List.of();
+            }
+            long ifRangeDate;
+            try {
+                ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            } catch (IllegalArgumentException e) {
+                return List.of();
+            }
+            if (ifRangeDate == -1 || lastModified / 1000 > ifRangeDate / 1000) {
+                return List.of();
+            }
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeRegion(HttpServletRequest request, HttpServletResponse response,
+                                    Path file, long start, long length, boolean head) throws IOException {
+        response.setContentLengthLong(length);
+        if (head || length == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // The connector writes the region itself once this handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        transfer(file, start, length, Channels.newChannel(response.getOutputStream()));
+    }
+
+    private static void writeMultipart(HttpServletResponse response, Path file, long size, String contentType,
+                                       List<HttpRange> ranges, boolean head) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (head) {
+            return;
+        }
+        ServletOutputStream out = response.getOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        for (HttpRange range : ranges) {
+            long start = range.getRangeStart(size);
+            long end = range.getRangeEnd(size);
+            out.write(("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + contentType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": bytes " + start + "-" + end + "/" + size + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            transfer(file, start, end - start + 1, channel);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void transfer(Path file, long start, long length, WritableByteChannel target) throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long transferred = source.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    // File shrank underneath us; nothing more to send
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+}
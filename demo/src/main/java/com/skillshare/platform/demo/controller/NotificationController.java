@@ -7,8 +7,10 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.NotificationDTO;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.security.CurrentUser;
 import com.skillshare.platform.demo.service.NotificationService;
 
@@ -27,6 +29,16 @@ public class NotificationController {
         return ResponseEntity.ok(ApiResponse.success(notifications));
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<NotificationDTO>>> getUserNotificationsByCursor(
+            @CurrentUser Long currentUserId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        CursorPage<NotificationDTO> notifications = notificationService.getUserNotificationsBefore(
+                currentUserId, Cursor.decode(cursor), Cursor.clampSize(size));
+        return ResponseEntity.ok(ApiResponse.success(notifications));
+    }
+
     @GetMapping("/unread/count")
     public ResponseEntity<ApiResponse<Long>> getUnreadNotificationsCount(@CurrentUser Long currentUserId) {
         long count = notificationService.getUnreadNotificationsCount(currentUserId);
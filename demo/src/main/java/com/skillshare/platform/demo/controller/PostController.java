@@ -10,9 +10,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.PostDTO;
 import com.skillshare.platform.demo.dto.request.PostRequest;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.security.CurrentUser;
 import com.skillshare.platform.demo.service.PostService;
 
@@ -33,6 +35,16 @@ public class PostController {
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<PostDTO>>> getAllPostsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @CurrentUser Long currentUserId) {
+        CursorPage<PostDTO> posts = postService.getAllPostsBefore(
+                Cursor.decode(cursor), Cursor.clampSize(size), currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(posts));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<PostDTO>> getPostById(
             @PathVariable Long id,
@@ -50,6 +62,17 @@ public class PostController {
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
 
+    @GetMapping("/user/{userId}/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<PostDTO>>> getPostsByUserIdByCursor(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @CurrentUser Long currentUserId) {
+        CursorPage<PostDTO> posts = postService.getPostsByUserIdBefore(
+                userId, Cursor.decode(cursor), Cursor.clampSize(size), currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(posts));
+    }
+
     @GetMapping("/feed")
     public ResponseEntity<ApiResponse<Page<PostDTO>>> getFeedPosts(
             @PageableDefault(size = 10) Pageable pageable,
@@ -58,6 +81,16 @@ public class PostController {
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
 
+    @GetMapping("/feed/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<PostDTO>>> getFeedPostsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @CurrentUser Long currentUserId) {
+        CursorPage<PostDTO> posts = postService.getFeedPostsBefore(
+                currentUserId, Cursor.decode(cursor), Cursor.clampSize(size));
+        return ResponseEntity.ok(ApiResponse.success(posts));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<Page<PostDTO>>> searchPosts(
             @RequestParam String query,
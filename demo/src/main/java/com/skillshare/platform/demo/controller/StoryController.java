@@ -1,8 +1,11 @@
 package com.skillshare.platform.demo.controller;
 
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.StoryDTO;
+import com.skillshare.platform.demo.dto.StoryTrayDTO;
 import com.skillshare.platform.demo.dto.request.StoryRequest;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.security.CurrentUser;
 import com.skillshare.platform.demo.service.StoryService;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +36,16 @@ public class StoryController {
         return ResponseEntity.ok(ApiResponse.success(stories));
     }
 
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<StoryDTO>>> getAllStoriesByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @CurrentUser Long currentUserId) {
+        CursorPage<StoryDTO> stories = storyService.getAllStoriesBefore(
+                Cursor.decode(cursor), Cursor.clampSize(size), currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(stories));
+    }
+
     @GetMapping("/user/{userId}")
     public ResponseEntity<ApiResponse<List<StoryDTO>>> getUserStories(
             @PathVariable Long userId,
@@ -41,6 +54,20 @@ public class StoryController {
         return ResponseEntity.ok(ApiResponse.success(stories));
     }
 
+    @GetMapping("/tray")
+    public ResponseEntity<ApiResponse<List<StoryTrayDTO>>> getStoryTray(@CurrentUser Long currentUserId) {
+        List<StoryTrayDTO> tray = storyService.getStoryTray(currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(tray));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<StoryDTO>> getStoryById(
+            @PathVariable Long id,
+            @CurrentUser Long currentUserId) {
+        StoryDTO story = storyService.getStoryById(id, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(story));
+    }
+
     @GetMapping("/feed")
     public ResponseEntity<ApiResponse<List<StoryDTO>>> getFeedStories(@CurrentUser Long currentUserId) {
         List<StoryDTO> stories = storyService.getFeedStories(currentUserId);
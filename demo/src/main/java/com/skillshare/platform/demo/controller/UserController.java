@@ -1,13 +1,19 @@
 package com.skillshare.platform.demo.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.skillshare.platform.demo.dto.AuthorSummary;
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.UserDTO;
+import com.skillshare.platform.demo.dto.UserRankDTO;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.security.CurrentUser;
 import com.skillshare.platform.demo.service.UserService;
 
@@ -20,6 +26,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_POPULAR_LIMIT = 100;
+    private static final int MAX_TYPEAHEAD_LIMIT = 20;
+    private static final int MAX_SUGGESTED_LIMIT = 50;
+
     private final UserService userService;
 
     @GetMapping("/{username}")
@@ -36,7 +47,15 @@ public class UserController {
             @RequestParam String query,
             @CurrentUser Long currentUserId) {
         List<UserDTO> users = userService.searchUsers(query);
-        users.forEach(user -> user.setFollowing(userService.isFollowing(currentUserId, user.getId())));
+        userService.resolveFollowing(currentUserId, users);
+        return ResponseEntity.ok(ApiResponse.success(users));
+    }
+
+    @GetMapping("/typeahead")
+    public ResponseEntity<ApiResponse<List<AuthorSummary>>> typeahead(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "8") int limit) {
+        List<AuthorSummary> users = userService.typeahead(query, Math.max(1, Math.min(limit, MAX_TYPEAHEAD_LIMIT)));
         return ResponseEntity.ok(ApiResponse.success(users));
     }
 
@@ -45,17 +64,32 @@ public class UserController {
             @RequestParam(defaultValue = "5") int limit,
             @CurrentUser Long currentUserId) {
         try {
-            List<UserDTO> users = userService.getSuggestedUsers(limit);
+            List<UserDTO> users = userService.getSuggestedUsers(currentUserId,
+                    Math.max(1, Math.min(limit, MAX_SUGGESTED_LIMIT)));
             if (users == null || users.isEmpty()) {
                 return ResponseEntity.status(404).body(ApiResponse.error("No suggested users found"));
             }
-            users.forEach(user -> user.setFollowing(userService.isFollowing(currentUserId, user.getId())));
+            userService.resolveFollowing(currentUserId, users);
             return ResponseEntity.ok(ApiResponse.success(users));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(ApiResponse.error("An error occurred: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/popular")
+    public ResponseEntity<ApiResponse<List<UserDTO>>> getPopularUsers(
+            @RequestParam(defaultValue = "10") int limit,
+            @CurrentUser Long currentUserId) {
+        List<UserDTO> users = userService.getPopularUsers(Math.max(1, Math.min(limit, MAX_POPULAR_LIMIT)));
+        userService.resolveFollowing(currentUserId, users);
+        return ResponseEntity.ok(ApiResponse.success(users));
+    }
+
+    @GetMapping("/{id}/rank")
+    public ResponseEntity<ApiResponse<UserRankDTO>> getFollowerRank(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success(userService.getFollowerRank(id)));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("authentication.principal.id == #id")
     public ResponseEntity<ApiResponse<UserDTO>> updateUser(
@@ -97,7 +131,7 @@ public class UserController {
             @PathVariable Long id,
             @CurrentUser Long currentUserId) {
         List<UserDTO> followers = userService.getFollowers(id);
-        followers.forEach(user -> user.setFollowing(userService.isFollowing(currentUserId, user.getId())));
+        userService.resolveFollowing(currentUserId, followers);
         return ResponseEntity.ok(ApiResponse.success(followers));
     }
 
@@ -106,7 +140,43 @@ public class UserController {
             @PathVariable Long id,
             @CurrentUser Long currentUserId) {
         List<UserDTO> following = userService.getFollowing(id);
-        following.forEach(user -> user.setFollowing(userService.isFollowing(currentUserId, user.getId())));
+        userService.resolveFollowing(currentUserId, following);
         return ResponseEntity.ok(ApiResponse.success(following));
     }
+
+    @GetMapping("/{id}/followers/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<UserDTO>>> getFollowersByCursor(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @CurrentUser Long currentUserId) {
+        CursorPage<UserDTO> followers = userService.getFollowersBefore(id, cursor, Cursor.clampSize(size));
+        userService.resolveFollowing(currentUserId, followers.getContent());
+        return ResponseEntity.ok(ApiResponse.success(followers));
+    }
+
+    @GetMapping("/{id}/following/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<UserDTO>>> getFollowingByCursor(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @CurrentUser Long currentUserId) {
+        CursorPage<UserDTO> following = userService.getFollowingBefore(id, cursor, Cursor.clampSize(size));
+        userService.resolveFollowing(currentUserId, following.getContent());
+        return ResponseEntity.ok(ApiResponse.success(following));
+    }
+
+    @GetMapping(value = "/{id}/followers/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportFollowers(@PathVariable Long id) {
+        userService.ensureUserExists(id);
+        StreamingResponseBody body = out -> userService.exportFollowers(id, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @GetMapping(value = "/{id}/following/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportFollowing(@PathVariable Long id) {
+        userService.ensureUserExists(id);
+        StreamingResponseBody body = out -> userService.exportFollowing(id, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
 }
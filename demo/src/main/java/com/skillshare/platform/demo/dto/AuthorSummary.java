@@ -0,0 +1,32 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import com.skillshare.platform.demo.model.User;
+
+/**
+ * Slim author projection embedded in posts, comments, stories and learning plans. Unlike
+ * {@link UserDTO} it never touches the follow graph.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthorSummary {
+    private Long id;
+    private String username;
+    private String name;
+    private String avatarUrl;
+
+    public static AuthorSummary fromUser(User user) {
+        return AuthorSummary.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .name(user.getName())
+                .avatarUrl(user.getAvatarUrl())
+                .build();
+    }
+}
@@ -15,16 +15,20 @@ import com.skillshare.platform.demo.model.Comment;
 @AllArgsConstructor
 public class CommentDTO {
     private Long id;
-    private UserDTO user;
+    private AuthorSummary user;
     private Long postId;
     private String content;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
     public static CommentDTO fromComment(Comment comment) {
+        return fromComment(comment, AuthorSummary.fromUser(comment.getUser()));
+    }
+
+    public static CommentDTO fromComment(Comment comment, AuthorSummary author) {
         return CommentDTO.builder()
                 .id(comment.getId())
-                .user(UserDTO.fromUser(comment.getUser()))
+                .user(author)
                 .postId(comment.getPost().getId())
                 .content(comment.getContent())
                 .createdAt(comment.getCreatedAt())
@@ -0,0 +1,55 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position over rows ordered by {@code (createdAt DESC, id DESC)}.
+ * Clients get it back as {@link com.skillshare.platform.demo.dto.response.CursorPage#getNextCursor()}
+ * and pass it unchanged to fetch the next page.
+ */
+@Getter
+@AllArgsConstructor
+public class Cursor {
+
+    public static final int DEFAULT_SIZE = 10;
+    public static final int MAX_SIZE = 50;
+
+    // Sorts after every real row; MySQL DATETIME cannot hold LocalDateTime.MAX
+    private static final Cursor START = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public static Cursor start() {
+        return START;
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
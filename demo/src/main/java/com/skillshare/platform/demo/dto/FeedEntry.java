@@ -0,0 +1,22 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedEntry {
+
+    // Feed order: newest first, post id breaks ties between posts created in the same instant
+    public static final Comparator<FeedEntry> NEWEST_FIRST = Comparator
+            .comparing(FeedEntry::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(FeedEntry::getPostId, Comparator.reverseOrder());
+
+    private Long postId;
+    private LocalDateTime createdAt;
+}
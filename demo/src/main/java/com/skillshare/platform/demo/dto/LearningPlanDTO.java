@@ -17,7 +17,7 @@ import com.skillshare.platform.demo.model.LearningPlan;
 @AllArgsConstructor
 public class LearningPlanDTO {
     private Long id;
-    private UserDTO user;
+    private AuthorSummary user;
     private String title;
     private String description;
     private int progress;
@@ -28,9 +28,13 @@ public class LearningPlanDTO {
     private LocalDateTime updatedAt;
 
     public static LearningPlanDTO fromLearningPlan(LearningPlan learningPlan) {
+        return fromLearningPlan(learningPlan, AuthorSummary.fromUser(learningPlan.getUser()));
+    }
+
+    public static LearningPlanDTO fromLearningPlan(LearningPlan learningPlan, AuthorSummary author) {
         return LearningPlanDTO.builder()
                 .id(learningPlan.getId())
-                .user(UserDTO.fromUser(learningPlan.getUser()))
+                .user(author)
                 .title(learningPlan.getTitle())
                 .description(learningPlan.getDescription())
                 .progress(learningPlan.getProgress())
@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 import com.skillshare.platform.demo.model.Media;
 import com.skillshare.platform.demo.model.MediaType;
 
+import java.util.Map;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -16,6 +18,8 @@ public class MediaDTO {
     private Long id;
     private String url;
     private MediaType type;
+    // Resized copies that are ready, by variant name (e.g. feed_480); empty until generated
+    private Map<String, String> variants;
 
     public static MediaDTO fromMedia(Media media) {
         if (media == null) {
@@ -32,6 +36,7 @@ public class MediaDTO {
                 .id(media.getId())
                 .url(mediaUrl)
                 .type(media.getType())
+                .variants(Map.of())
                 .build();
     }
 }
@@ -18,7 +18,7 @@ import com.skillshare.platform.demo.model.PostType;
 @AllArgsConstructor
 public class PostDTO {
     private Long id;
-    private UserDTO user;
+    private AuthorSummary user;
     private String content;
     private PostType type;
     private List<MediaDTO> media;
@@ -29,16 +29,20 @@ public class PostDTO {
     private LocalDateTime updatedAt;
 
     public static PostDTO fromPost(Post post) {
+        return fromPost(post, AuthorSummary.fromUser(post.getUser()));
+    }
+
+    public static PostDTO fromPost(Post post, AuthorSummary author) {
         return PostDTO.builder()
                 .id(post.getId())
-                .user(UserDTO.fromUser(post.getUser()))
+                .user(author)
                 .content(post.getContent())
                 .type(post.getType())
                 .media(post.getMedia().stream()
                         .map(MediaDTO::fromMedia)
                         .collect(Collectors.toList()))
-                .likesCount(post.getLikes().size())
-                .commentsCount(post.getComments().size())
+                .likesCount(post.getLikesCount())
+                .commentsCount(post.getCommentsCount())
                 .createdAt(post.getCreatedAt())
                 .updatedAt(post.getUpdatedAt())
                 .build();
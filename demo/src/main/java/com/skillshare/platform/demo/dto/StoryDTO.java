@@ -16,10 +16,11 @@ import com.skillshare.platform.demo.model.Story;
 @AllArgsConstructor
 public class StoryDTO {
     private Long id;
-    private UserDTO user;
+    private AuthorSummary user;
     private String content;
     private String mediaUrl;
     private MediaType mediaType;
+    // Approximate distinct viewers, filled in by StoryService from StoryViewLog
     private int viewsCount;
     private boolean viewed;
     private LocalDateTime createdAt;
@@ -29,14 +30,21 @@ public class StoryDTO {
         if (story == null) {
             return null;
         }
-        
+
+        return fromStory(story, AuthorSummary.fromUser(story.getUser()));
+    }
+
+    public static StoryDTO fromStory(Story story, AuthorSummary author) {
+        if (story == null) {
+            return null;
+        }
+
         return StoryDTO.builder()
                 .id(story.getId())
-                .user(UserDTO.fromUser(story.getUser()))
+                .user(author)
                 .content(story.getContent())
                 .mediaUrl(story.getMediaUrl())
                 .mediaType(story.getMediaType())
-                .viewsCount(story.getViewers() != null ? story.getViewers().size() : 0)
                 .createdAt(story.getCreatedAt())
                 .expiresAt(story.getExpiresAt())
                 .build();
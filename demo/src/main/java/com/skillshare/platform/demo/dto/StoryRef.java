@@ -0,0 +1,18 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Story identity and timing only, enough to lay out a story tray without loading entities
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryRef {
+    private Long storyId;
+    private Long userId;
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoryTrayDTO {
+    private AuthorSummary user;
+    // Oldest first, in playback order; each story is fetched with GET /api/stories/{id}
+    private List<Long> storyIds;
+    private boolean hasUnseen;
+    private Long firstUnseenStoryId;
+    private LocalDateTime latestStoryAt;
+}
@@ -2,10 +2,11 @@ package com.skillshare.platform.demo.dto;
 
 import lombok.*;
 import java.time.LocalDateTime;
+import java.util.Map;
 import com.skillshare.platform.demo.model.User;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserDTO {
@@ -18,6 +19,9 @@ public class UserDTO {
     private String location;
     private String avatarUrl;
     private String coverImage;
+    // Resized avatar and cover images that are ready, by variant name (e.g. avatar_64)
+    private Map<String, String> avatarVariants;
+    private Map<String, String> coverVariants;
     private LocalDateTime createdAt;
     private int followersCount;
     private int followingCount;
@@ -36,8 +40,8 @@ public class UserDTO {
                 .avatarUrl(user.getAvatarUrl())
                 .coverImage(user.getCoverImage())
                 .createdAt(user.getCreatedAt())
-                .followersCount(user.getFollowers().size())  // Assuming user.getFollowers() is a collection
-                .followingCount(user.getFollowing().size())  // Assuming user.getFollowing() is a collection
+                .followersCount(user.getFollowersCount())
+                .followingCount(user.getFollowingCount())
                 .build();
     }
 
@@ -0,0 +1,17 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRankDTO {
+    private Long userId;
+    private int followersCount;
+    // 1-based; users with the same follower count share a rank
+    private long rank;
+}
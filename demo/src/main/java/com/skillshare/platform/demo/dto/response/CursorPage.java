@@ -0,0 +1,44 @@
+package com.skillshare.platform.demo.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.skillshare.platform.demo.dto.Cursor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only
+     * tells whether another page exists, so no COUNT query is needed.
+     */
+    public static <E, T> CursorPage<T> fromRows(List<E> rows, int size,
+                                                Function<E, Cursor> cursorOf,
+                                                Function<List<E>, List<T>> mapper) {
+        return fromKeyedRows(rows, size, row -> cursorOf.apply(row).encode(), mapper);
+    }
+
+    /**
+     * Same as {@link #fromRows} for orderings whose position is a plain token, such as a user id.
+     */
+    public static <E, T> CursorPage<T> fromKeyedRows(List<E> rows, int size,
+                                                     Function<E, String> tokenOf,
+                                                     Function<List<E>, List<T>> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? tokenOf.apply(pageRows.get(pageRows.size() - 1)) : null;
+        return CursorPage.<T>builder()
+                .content(mapper.apply(pageRows))
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.skillshare.platform.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A resized copy of an uploaded image, e.g. {@code avatar_64} or {@code feed_480}. A row
+ * only exists once the variant file has been written, so its presence means "ready".
+ */
+@Entity
+@Table(
+    name = "image_variants",
+    uniqueConstraints = @UniqueConstraint(name = "uk_image_variant", columnNames = {"original_url", "variant"})
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "original_url", nullable = false)
+    private String originalUrl;
+
+    @Column(nullable = false, length = 32)
+    private String variant;
+
+    @Column(nullable = false)
+    private String url;
+
+    private int width;
+
+    private int height;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
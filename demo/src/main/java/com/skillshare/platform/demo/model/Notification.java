@@ -9,7 +9,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notifications")
+@Table(
+    name = "notifications",
+    indexes = @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at, id")
+)
 @Data
 @Builder
 @NoArgsConstructor
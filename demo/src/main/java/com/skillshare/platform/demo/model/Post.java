@@ -10,7 +10,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "posts")
+@Table(
+    name = "posts",
+    indexes = {
+        @Index(name = "idx_posts_created", columnList = "created_at, id"),
+        @Index(name = "idx_posts_user_created", columnList = "user_id, created_at, id")
+    }
+)
 @Data
 @Builder
 @NoArgsConstructor
@@ -21,7 +27,7 @@ public class Post {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -44,6 +50,15 @@ public class Post {
     @Builder.Default
     private List<Like> likes = new ArrayList<>();
 
+    // Denormalized counters, kept in step by LikeService/CommentService and repaired by PostCounterReconciler
+    @Column(name = "likes_count", nullable = false, columnDefinition = "int default 0")
+    @Builder.Default
+    private int likesCount = 0;
+
+    @Column(name = "comments_count", nullable = false, columnDefinition = "int default 0")
+    @Builder.Default
+    private int commentsCount = 0;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
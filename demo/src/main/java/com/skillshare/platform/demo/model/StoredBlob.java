@@ -0,0 +1,36 @@
+package com.skillshare.platform.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reference count for a content-addressed upload. {@code name} is the stored file name,
+ * the SHA-256 of the content plus the original extension; one reference is taken for every
+ * row (media, story, avatar, cover image) that points at the file.
+ */
+@Entity
+@Table(name = "stored_blobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredBlob {
+
+    @Id
+    @Column(length = 80)
+    private String name;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
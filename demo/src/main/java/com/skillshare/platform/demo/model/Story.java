@@ -11,7 +11,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "stories")
+@Table(
+    name = "stories",
+    indexes = @Index(name = "idx_stories_created", columnList = "created_at, id")
+)
 @Data
 @Builder
 @NoArgsConstructor
@@ -22,7 +25,7 @@ public class Story {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -52,9 +55,13 @@ public class Story {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        // Stories expire after 24 hours
-        expiresAt = createdAt.plusHours(24);
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        // Stories expire after 24 hours; StoryService sets this up front so the media bucket matches
+        if (expiresAt == null) {
+            expiresAt = createdAt.plusHours(24);
+        }
         
         // Ensure viewers is initialized
         if (viewers == null) {
@@ -0,0 +1,43 @@
+package com.skillshare.platform.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Materialized home-timeline row: one entry per (reader, post) pair, written when a
+ * followed author posts so that a feed read is a single range scan on
+ * {@code (user_id, created_at)}.
+ */
+@Entity
+@Table(
+    name = "timeline_entries",
+    uniqueConstraints = @UniqueConstraint(name = "uk_timeline_user_post", columnNames = {"user_id", "post_id"}),
+    indexes = @Index(name = "idx_timeline_user_created", columnList = "user_id, created_at, post_id")
+)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    // Copy of the post's created_at so the timeline can be ordered without joining posts
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
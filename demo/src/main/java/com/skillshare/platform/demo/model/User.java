@@ -76,6 +76,15 @@ public class User implements UserDetails {
     @Builder.Default
     private Set<User> following = new HashSet<>();
 
+    // Denormalized counters, kept in step by UserService and repaired by FollowCounterReconciler
+    @Column(name = "followers_count", nullable = false, columnDefinition = "int default 0")
+    @Builder.Default
+    private int followersCount = 0;
+
+    @Column(name = "following_count", nullable = false, columnDefinition = "int default 0")
+    @Builder.Default
+    private int followingCount = 0;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     @JsonIgnore
     private List<Post> posts;
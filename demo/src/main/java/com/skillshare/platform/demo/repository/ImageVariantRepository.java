@@ -0,0 +1,15 @@
+package com.skillshare.platform.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.skillshare.platform.demo.model.ImageVariant;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+
+    List<ImageVariant> findByOriginalUrlIn(Collection<String> originalUrls);
+}
@@ -3,13 +3,18 @@ package com.skillshare.platform.demo.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.skillshare.platform.demo.dto.FeedEntry;
 import com.skillshare.platform.demo.model.Post;
 import com.skillshare.platform.demo.model.PostType;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
@@ -17,12 +22,56 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     Page<Post> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
     Page<Post> findByTypeOrderByCreatedAtDesc(PostType type, Pageable pageable);
+
+    @Query("SELECT p FROM Post p WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findPostsBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Post p WHERE p.user.id = :userId " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findPostsByUserIdBefore(@Param("userId") Long userId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
     
     @Query("SELECT p FROM Post p WHERE p.user.id IN " +
             "(SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId) " +
             "ORDER BY p.createdAt DESC")
     Page<Post> findFeedPostsByUserId(Long userId, Pageable pageable);
     
+    @Query("SELECT new com.skillshare.platform.demo.dto.FeedEntry(p.id, p.createdAt) FROM Post p " +
+            "WHERE p.user.id = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    List<FeedEntry> findRecentFeedEntriesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.skillshare.platform.demo.dto.FeedEntry(p.id, p.createdAt) FROM Post p " +
+            "WHERE p.user.id = :userId " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<FeedEntry> findFeedEntriesByUserIdBefore(@Param("userId") Long userId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  Pageable pageable);
+
     @Query("SELECT p FROM Post p WHERE p.content LIKE %:query% ORDER BY p.createdAt DESC")
     Page<Post> searchPosts(String query, Pageable pageable);
+
+    @Query("SELECT p.user.id FROM Post p WHERE p.id = :postId")
+    Optional<Long> findAuthorIdById(@Param("postId") Long postId);
+
+    @Query("SELECT p.likesCount FROM Post p WHERE p.id = :postId")
+    Optional<Integer> findLikesCountById(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.commentsCount = p.commentsCount + :delta WHERE p.id = :postId")
+    int adjustCommentsCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE posts p " +
+            "LEFT JOIN (SELECT post_id, COUNT(*) AS cnt FROM likes GROUP BY post_id) l ON l.post_id = p.id " +
+            "LEFT JOIN (SELECT post_id, COUNT(*) AS cnt FROM comments GROUP BY post_id) c ON c.post_id = p.id " +
+            "SET p.likes_count = COALESCE(l.cnt, 0), p.comments_count = COALESCE(c.cnt, 0) " +
+            "WHERE p.likes_count <> COALESCE(l.cnt, 0) OR p.comments_count <> COALESCE(c.cnt, 0)",
+            nativeQuery = true)
+    int reconcileCounters();
 }
@@ -1,14 +1,19 @@
 package com.skillshare.platform.demo.repository;
 
+import com.skillshare.platform.demo.dto.StoryRef;
 import com.skillshare.platform.demo.model.Story;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface StoryRepository extends JpaRepository<Story, Long> {
@@ -19,9 +24,38 @@ public interface StoryRepository extends JpaRepository<Story, Long> {
            "ORDER BY s.createdAt DESC")
     List<Story> findStoriesFromFollowedUsers(Long userId, LocalDateTime now);
 
+    @Query("SELECT new com.skillshare.platform.demo.dto.StoryRef(s.id, s.user.id, s.createdAt, s.expiresAt) " +
+           "FROM Story s WHERE s.user.id IN :userIds AND s.expiresAt > :now " +
+           "ORDER BY s.createdAt, s.id")
+    List<StoryRef> findActiveStoryRefsByUserIds(@Param("userIds") Collection<Long> userIds,
+                                                @Param("now") LocalDateTime now);
+
     List<Story> findByUserIdAndExpiresAtAfterOrderByCreatedAtDesc(Long userId, LocalDateTime expiresAt);
 
-    List<Story> findByExpiresAtBefore(LocalDateTime expiresAt);
+    @Query("SELECT s.mediaUrl FROM Story s WHERE s.id IN :ids AND s.expiresAt <= :now")
+    List<String> findExpiredMediaUrls(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT story_id, user_id FROM story_viewers WHERE story_id IN (:ids)", nativeQuery = true)
+    List<Object[]> findViewerPairsByStoryIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM story_viewers WHERE story_id IN (:ids)", nativeQuery = true)
+    int deleteViewersByStoryIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Story s WHERE s.id IN :ids AND s.expiresAt <= :now")
+    int deleteExpiredByIds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
 
     Page<Story> findByExpiresAtAfter(LocalDateTime expiresAt, Pageable pageable);
+
+    @Query("SELECT s FROM Story s WHERE s.expiresAt > :now " +
+           "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<Story> findActiveBefore(@Param("now") LocalDateTime now,
+                                 @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable pageable);
+
+    @Query("SELECT MAX(s.expiresAt) FROM Story s WHERE s.user.id = :userId AND s.expiresAt > :now")
+    Optional<LocalDateTime> findLatestActiveExpiry(@Param("userId") Long userId, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,79 @@
+package com.skillshare.platform.demo.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.skillshare.platform.demo.dto.FeedEntry;
+import com.skillshare.platform.demo.model.Post;
+import com.skillshare.platform.demo.model.TimelineEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    @Query(value = "SELECT t.post FROM TimelineEntry t WHERE t.user.id = :userId " +
+            "ORDER BY t.createdAt DESC, t.post.id DESC",
+            countQuery = "SELECT COUNT(t) FROM TimelineEntry t WHERE t.user.id = :userId")
+    Page<Post> findTimelinePosts(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.skillshare.platform.demo.dto.FeedEntry(t.post.id, t.createdAt) " +
+            "FROM TimelineEntry t WHERE t.user.id = :userId " +
+            "ORDER BY t.createdAt DESC, t.post.id DESC")
+    List<FeedEntry> findTimelineEntries(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT new com.skillshare.platform.demo.dto.FeedEntry(t.post.id, t.createdAt) " +
+            "FROM TimelineEntry t WHERE t.user.id = :userId " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.post.id < :postId)) " +
+            "ORDER BY t.createdAt DESC, t.post.id DESC")
+    List<FeedEntry> findTimelineEntriesBefore(@Param("userId") Long userId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("postId") Long postId,
+                                              Pageable pageable);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO timeline_entries (user_id, post_id, created_at) " +
+            "SELECT uf.follower_id, :postId, :createdAt FROM user_followers uf " +
+            "WHERE uf.followed_id = :authorId", nativeQuery = true)
+    int fanOutToFollowers(@Param("authorId") Long authorId,
+                          @Param("postId") Long postId,
+                          @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO timeline_entries (user_id, post_id, created_at) " +
+            "SELECT uf.follower_id, p.id, p.created_at FROM user_followers uf " +
+            "JOIN (SELECT id, created_at FROM posts WHERE user_id = :authorId " +
+            "ORDER BY created_at DESC LIMIT :limit) p " +
+            "WHERE uf.followed_id = :authorId", nativeQuery = true)
+    int fanOutRecentPosts(@Param("authorId") Long authorId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO timeline_entries (user_id, post_id, created_at) " +
+            "SELECT :followerId, p.id, p.created_at FROM posts p " +
+            "WHERE p.user_id = :followedId " +
+            "ORDER BY p.created_at DESC LIMIT :limit", nativeQuery = true)
+    int backfillFromAuthor(@Param("followerId") Long followerId,
+                           @Param("followedId") Long followedId,
+                           @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE t FROM timeline_entries t JOIN posts p ON p.id = t.post_id " +
+            "WHERE t.user_id = :followerId AND p.user_id = :followedId", nativeQuery = true)
+    int pruneAuthor(@Param("followerId") Long followerId, @Param("followedId") Long followedId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO timeline_entries (user_id, post_id, created_at) " +
+            "SELECT uf.follower_id, p.id, p.created_at FROM user_followers uf " +
+            "JOIN posts p ON p.user_id = uf.followed_id", nativeQuery = true)
+    int rebuildAll();
+}
@@ -1,10 +1,15 @@
 package com.skillshare.platform.demo.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.skillshare.platform.demo.dto.AuthorSummary;
 import com.skillshare.platform.demo.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,12 +24,61 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
+    @Query("SELECT new com.skillshare.platform.demo.dto.AuthorSummary(u.id, u.username, u.name, u.avatarUrl) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<AuthorSummary> findAuthorSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT u.username FROM User u WHERE u.id = :userId")
+    Optional<String> findUsernameById(@Param("userId") Long userId);
+
     @Query("SELECT u FROM User u WHERE u.username LIKE %:query% OR u.name LIKE %:query%")
-    List<User> searchUsers(String query);
+    List<User> searchUsers(String query, Pageable pageable);
+
+    @Query(value = "SELECT followers_count FROM users WHERE id = :userId", nativeQuery = true)
+    long countFollowers(@Param("userId") Long userId);
+
+    @Query(value = "SELECT followed_id FROM user_followers " +
+            "GROUP BY followed_id HAVING COUNT(*) >= :threshold", nativeQuery = true)
+    List<Long> findUserIdsWithFollowersAtLeast(@Param("threshold") long threshold);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_followers (followed_id, follower_id) VALUES (:followedId, :followerId)",
+            nativeQuery = true)
+    int insertFollow(@Param("followerId") Long followerId, @Param("followedId") Long followedId);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_followers WHERE followed_id = :followedId AND follower_id = :followerId",
+            nativeQuery = true)
+    int deleteFollow(@Param("followerId") Long followerId, @Param("followedId") Long followedId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followersCount = u.followersCount + :delta WHERE u.id = :userId")
+    int adjustFollowersCount(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = u.followingCount + :delta WHERE u.id = :userId")
+    int adjustFollowingCount(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE users u " +
+            "LEFT JOIN (SELECT followed_id, COUNT(*) AS cnt FROM user_followers GROUP BY followed_id) f ON f.followed_id = u.id " +
+            "LEFT JOIN (SELECT follower_id, COUNT(*) AS cnt FROM user_followers GROUP BY follower_id) g ON g.follower_id = u.id " +
+            "SET u.followers_count = COALESCE(f.cnt, 0), u.following_count = COALESCE(g.cnt, 0) " +
+            "WHERE u.followers_count <> COALESCE(f.cnt, 0) OR u.following_count <> COALESCE(g.cnt, 0)",
+            nativeQuery = true)
+    int reconcileFollowCounters();
+
+    // Keyset pages over user_followers, newest accounts first; served by the (followed_id, follower_id)
+    // primary key and the follower_id index respectively
+    @Query(value = "SELECT follower_id FROM user_followers WHERE followed_id = :userId AND follower_id < :beforeId " +
+            "ORDER BY follower_id DESC LIMIT :limit", nativeQuery = true)
+    List<Long> findFollowerIdsBefore(@Param("userId") Long userId,
+                                     @Param("beforeId") Long beforeId,
+                                     @Param("limit") int limit);
 
-    @Query(value = "SELECT u.* FROM users u " +
-            "LEFT JOIN user_followers uf ON u.id = uf.followed_id " +
-            "GROUP BY u.id " +
-            "ORDER BY COUNT(uf.follower_id) DESC LIMIT :limit", nativeQuery = true)
-    List<User> findTopUsersByFollowers(int limit);
+    @Query(value = "SELECT followed_id FROM user_followers WHERE follower_id = :userId AND followed_id < :beforeId " +
+            "ORDER BY followed_id DESC LIMIT :limit", nativeQuery = true)
+    List<Long> findFollowingIdsBefore(@Param("userId") Long userId,
+                                      @Param("beforeId") Long beforeId,
+                                      @Param("limit") int limit);
 }
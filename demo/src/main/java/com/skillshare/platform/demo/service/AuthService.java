@@ -9,6 +9,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.skillshare.platform.demo.dto.AuthorSummary;
 import com.skillshare.platform.demo.dto.UserDTO;
 import com.skillshare.platform.demo.dto.request.LoginRequest;
 import com.skillshare.platform.demo.dto.request.RegisterRequest;
@@ -27,6 +28,8 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final FollowerLeaderboard followerLeaderboard;
+    private final UserSearchIndex userSearchIndex;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -50,6 +53,8 @@ public class AuthService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        followerLeaderboard.recordAfterCommit(savedUser.getId(), 0);
+        userSearchIndex.indexAfterCommit(AuthorSummary.fromUser(savedUser));
         String token = jwtService.generateToken(savedUser);
 
         return AuthResponse.builder()
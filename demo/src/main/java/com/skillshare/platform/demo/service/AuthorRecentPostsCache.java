@@ -0,0 +1,93 @@
+package com.skillshare.platform.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.skillshare.platform.demo.dto.FeedEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent posts of "pulled" authors, i.e. authors with too many followers to fan their
+ * posts out on write. Each author keeps a bounded, newest-first list that feed reads
+ * merge with the reader's materialized timeline. Authors whose list has been cut at the
+ * capacity are reported by {@link #isTruncated}, so deep reads can go to the database.
+ */
+@Component
+public class AuthorRecentPostsCache {
+
+    private final Map<Long, List<FeedEntry>> recentPosts = new ConcurrentHashMap<>();
+    private final Set<Long> truncated = ConcurrentHashMap.newKeySet();
+    private final int capacity;
+
+    public AuthorRecentPostsCache(@Value("${feed.pull.recent-posts-per-author:100}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    public boolean isPulled(Long authorId) {
+        return recentPosts.containsKey(authorId);
+    }
+
+    public Set<Long> pulledAuthors() {
+        return Collections.unmodifiableSet(recentPosts.keySet());
+    }
+
+    public List<FeedEntry> recent(Long authorId) {
+        return recentPosts.getOrDefault(authorId, List.of());
+    }
+
+    /**
+     * Whether the author may have older posts than the ones held here.
+     */
+    public boolean isTruncated(Long authorId) {
+        return truncated.contains(authorId);
+    }
+
+    /**
+     * @param entries the author's most recent posts, as loaded with a limit of at most the
+     *                capacity; a full list is assumed to have more behind it
+     */
+    public void markPulled(Long authorId, List<FeedEntry> entries) {
+        List<FeedEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(FeedEntry.NEWEST_FIRST);
+        if (sorted.size() >= capacity) {
+            truncated.add(authorId);
+        }
+        recentPosts.put(authorId, trim(authorId, sorted));
+    }
+
+    public void unmarkPulled(Long authorId) {
+        recentPosts.remove(authorId);
+        truncated.remove(authorId);
+    }
+
+    public void add(Long authorId, FeedEntry entry) {
+        recentPosts.compute(authorId, (id, current) -> {
+            List<FeedEntry> updated = new ArrayList<>(current != null ? current : List.of());
+            updated.add(entry);
+            updated.sort(FeedEntry.NEWEST_FIRST);
+            return trim(authorId, updated);
+        });
+    }
+
+    public void remove(Long authorId, Long postId) {
+        recentPosts.computeIfPresent(authorId, (id, current) -> {
+            List<FeedEntry> updated = new ArrayList<>(current);
+            updated.removeIf(entry -> entry.getPostId().equals(postId));
+            return List.copyOf(updated);
+        });
+    }
+
+    private List<FeedEntry> trim(Long authorId, List<FeedEntry> entries) {
+        if (entries.size() <= capacity) {
+            return List.copyOf(entries);
+        }
+        truncated.add(authorId);
+        return List.copyOf(entries.subList(0, capacity));
+    }
+}
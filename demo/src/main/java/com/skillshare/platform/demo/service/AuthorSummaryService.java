@@ -0,0 +1,77 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.skillshare.platform.demo.dto.AuthorSummary;
+import com.skillshare.platform.demo.repository.UserRepository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves {@link AuthorSummary} projections for a batch of user ids with one
+ * constructor-expression query. Results are cached for the rest of the current HTTP
+ * request, so an author shared by a post and its comments is only fetched once.
+ */
+@Service
+@RequiredArgsConstructor
+public class AuthorSummaryService {
+
+    private static final String REQUEST_CACHE_ATTRIBUTE = AuthorSummaryService.class.getName() + ".cache";
+
+    private final UserRepository userRepository;
+
+    public Map<Long, AuthorSummary> getSummaries(Collection<Long> userIds) {
+        Map<Long, AuthorSummary> cache = requestCache();
+        Set<Long> missing = userIds.stream()
+                .filter(id -> id != null && !cache.containsKey(id))
+                .collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            userRepository.findAuthorSummariesByIds(missing)
+                    .forEach(summary -> cache.put(summary.getId(), summary));
+        }
+
+        Map<Long, AuthorSummary> result = new HashMap<>();
+        userIds.forEach(id -> {
+            AuthorSummary summary = cache.get(id);
+            if (summary != null) {
+                result.put(id, summary);
+            }
+        });
+        return result;
+    }
+
+    public AuthorSummary getSummary(Long userId) {
+        return getSummaries(List.of(userId)).get(userId);
+    }
+
+    /**
+     * Drops the cached summary of a user whose profile changed during this request.
+     */
+    public void evict(Long userId) {
+        requestCache().remove(userId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, AuthorSummary> requestCache() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            // Outside of a web request (scheduled jobs, startup): no caching
+            return new HashMap<>();
+        }
+        Map<Long, AuthorSummary> cache =
+                (Map<Long, AuthorSummary>) attributes.getAttribute(REQUEST_CACHE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cache == null) {
+            cache = new HashMap<>();
+            attributes.setAttribute(REQUEST_CACHE_ATTRIBUTE, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return cache;
+    }
+}
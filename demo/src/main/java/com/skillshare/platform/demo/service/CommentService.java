@@ -3,12 +3,17 @@ package com.skillshare.platform.demo.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.skillshare.platform.demo.dto.AuthorSummary;
 import com.skillshare.platform.demo.dto.CommentDTO;
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.request.CommentRequest;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.Comment;
 import com.skillshare.platform.demo.model.NotificationType;
@@ -18,6 +23,10 @@ import com.skillshare.platform.demo.repository.CommentRepository;
 import com.skillshare.platform.demo.repository.PostRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -27,10 +36,20 @@ public class CommentService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final AuthorSummaryService authorSummaryService;
 
     public Page<CommentDTO> getCommentsByPostId(Long postId, Pageable pageable) {
         Page<Comment> comments = commentRepository.findByPostIdOrderByCreatedAtDesc(postId, pageable);
-        return comments.map(CommentDTO::fromComment);
+        return new PageImpl<>(mapCommentsToDTOs(comments.getContent()),
+                comments.getPageable(), comments.getTotalElements());
+    }
+
+    public CursorPage<CommentDTO> getCommentsByPostIdBefore(Long postId, Cursor cursor, int size) {
+        List<Comment> comments = commentRepository.findByPostIdBefore(
+                postId, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size + 1));
+        return CursorPage.fromRows(comments, size,
+                comment -> new Cursor(comment.getCreatedAt(), comment.getId()),
+                this::mapCommentsToDTOs);
     }
 
     @Transactional
@@ -53,6 +72,7 @@ public class CommentService {
                     .build();
 
             Comment savedComment = commentRepository.save(comment);
+            postRepository.adjustCommentsCount(postId, 1);
             log.info("Comment saved successfully with id: {}", savedComment.getId());
 
             // Send notification to post owner if it's not the same user
@@ -108,6 +128,7 @@ public class CommentService {
         }
 
         commentRepository.delete(comment);
+        postRepository.adjustCommentsCount(comment.getPost().getId(), -1);
     }
 
     public CommentDTO getCommentById(Long id) {
@@ -115,4 +136,12 @@ public class CommentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Comment not found with id: " + id));
         return CommentDTO.fromComment(comment);
     }
+
+    private List<CommentDTO> mapCommentsToDTOs(List<Comment> comments) {
+        Map<Long, AuthorSummary> authors = authorSummaryService.getSummaries(
+                comments.stream().map(comment -> comment.getUser().getId()).collect(Collectors.toSet()));
+        return comments.stream()
+                .map(comment -> CommentDTO.fromComment(comment, authors.get(comment.getUser().getId())))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,31 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops ephemeral upload buckets once their hour has passed: shortly after every hour, and
+ * once at startup to reclaim buckets left behind while the application was down.
+ */
+@Component
+@RequiredArgsConstructor
+public class EphemeralStorageJanitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(EphemeralStorageJanitor.class);
+
+    private final FileStorageService fileStorageService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${file.ephemeral.sweep-cron:0 1 * * * *}")
+    public void sweep() {
+        int dropped = fileStorageService.dropExpiredEphemeralBuckets();
+        if (dropped > 0) {
+            logger.info("Dropped {} expired ephemeral upload buckets", dropped);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.skillshare.platform.demo.service;
 
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,28 +10,87 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class FileStorageService {
     private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
 
+    // Story media and other short-lived uploads, under <upload-dir>/ephemeral/<yyyyMMddHH>/
+    private static final String EPHEMERAL_DIR = "ephemeral";
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHH");
+
+    // Uploads being hashed are written here first and moved into place once their digest is known
+    private static final String INCOMING_DIR = ".incoming";
+    private static final int HASH_BUFFER_BYTES = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
     private final Path fileStorageLocation;
     private final String uploadBaseUrl;
+    private final ThreadPoolExecutor ingestExecutor;
+    private final StoredBlobRegistry storedBlobRegistry;
+    private final boolean contentAddressed;
+    // Serializes store and delete of the same content-addressed name within this instance
+    private final Object[] blobLocks = new Object[LOCK_STRIPES];
 
     public FileStorageService(
             @Value("${file.upload-dir:./uploads}") String uploadDir,
-            @Value("${file.upload-url:uploads}") String uploadUrl) {
+            @Value("${file.upload-url:uploads}") String uploadUrl,
+            @Value("${file.ingest.threads:4}") int ingestThreads,
+            @Value("${file.ingest.queue-capacity:32}") int ingestQueueCapacity,
+            @Value("${file.storage.content-addressed:true}") boolean contentAddressed,
+            StoredBlobRegistry storedBlobRegistry) {
         
         logger.info("Initializing FileStorageService with uploadDir={}, uploadUrl={}", uploadDir, uploadUrl);
         
         this.fileStorageLocation = Paths.get(uploadDir)
                 .toAbsolutePath().normalize();
         this.uploadBaseUrl = uploadUrl;
+        this.contentAddressed = contentAddressed;
+        this.storedBlobRegistry = storedBlobRegistry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            blobLocks[i] = new Object();
+        }
+        // When the queue is full the request thread writes its own part, which throttles uploads
+        // instead of rejecting them
+        AtomicInteger threadCount = new AtomicInteger();
+        this.ingestExecutor = new ThreadPoolExecutor(ingestThreads, ingestThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(ingestQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-ingest-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.ingestExecutor.allowCoreThreadTimeOut(true);
 
         try {
             // Create directory if it doesn't exist
@@ -58,9 +118,340 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Stores a permanent upload. In content-addressed mode the file is named after the
+     * SHA-256 of its content, so uploading the same bytes again only takes another reference
+     * on the existing file; every call must be matched by one {@link #deleteFile} eventually.
+     */
     public String storeFile(MultipartFile file) throws IOException {
+        if (contentAddressed) {
+            return storeContentAddressed(file, this.fileStorageLocation, "", true);
+        }
+        return store(file, this.fileStorageLocation, "", true);
+    }
+
+    /**
+     * Stores the parts of one upload in parallel on the ingest pool and returns their URLs in
+     * the same order. Every file is flushed to disk before this returns; if any part fails,
+     * the parts already written are deleted and the first failure is rethrown.
+     */
+    public List<String> storeFiles(List<MultipartFile> files) throws IOException {
+        List<CompletableFuture<String>> writes = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            writes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return storeFile(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, ingestExecutor));
+        }
+
+        List<String> fileUrls = new ArrayList<>(files.size());
+        Throwable failure = null;
+        for (CompletableFuture<String> write : writes) {
+            try {
+                fileUrls.add(write.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure == null) {
+            return fileUrls;
+        }
+
+        for (String fileUrl : fileUrls) {
+            try {
+                deleteFile(fileUrl);
+            } catch (IOException e) {
+                logger.warn("Could not remove {} after a failed upload: {}", fileUrl, e.getMessage());
+            }
+        }
+        if (failure instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) failure).getCause();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        throw new IOException("Could not store file", failure);
+    }
+
+    /**
+     * Stores a file that is only needed until {@code expiresAt}, in the ephemeral bucket for
+     * the first hour boundary at or after that time. The whole bucket directory is dropped by
+     * {@link #dropExpiredEphemeralBuckets()} once that hour has passed.
+     */
+    public String storeEphemeralFile(MultipartFile file, LocalDateTime expiresAt) throws IOException {
+        String bucket = ephemeralBucketOf(expiresAt);
+        Path bucketDirectory = this.fileStorageLocation.resolve(EPHEMERAL_DIR).resolve(bucket);
+        Files.createDirectories(bucketDirectory);
+        // Duplicates are shared within a bucket only, and need no reference count since the
+        // bucket is dropped as a whole
+        if (contentAddressed) {
+            return storeContentAddressed(file, bucketDirectory, EPHEMERAL_DIR + "/" + bucket + "/", false);
+        }
+        return store(file, bucketDirectory, EPHEMERAL_DIR + "/" + bucket + "/", false);
+    }
+
+    /**
+     * Whether the file is named after its content, and so never changes under its URL.
+     */
+    public boolean isContentAddressed(String fileUrl) {
+        if (fileUrl == null) {
+            return false;
+        }
+        String fileName = fileUrl.substring(fileUrl.lastIndexOf('/') + 1);
+        int dot = fileName.indexOf('.');
+        String stem = dot >= 0 ? fileName.substring(0, dot) : fileName;
+        return stem.matches("[0-9a-f]{64}");
+    }
+
+    public boolean isStored(String fileUrl) {
+        return fileUrl != null && fileUrl.startsWith("/" + uploadBaseUrl + "/");
+    }
+
+    public boolean isEphemeral(String fileUrl) {
+        return fileUrl != null && fileUrl.startsWith("/" + uploadBaseUrl + "/" + EPHEMERAL_DIR + "/");
+    }
+
+    /**
+     * Removes every ephemeral bucket whose hour has passed, along with any file inside it.
+     */
+    public int dropExpiredEphemeralBuckets() {
+        Path ephemeralRoot = this.fileStorageLocation.resolve(EPHEMERAL_DIR);
+        if (!Files.isDirectory(ephemeralRoot)) {
+            return 0;
+        }
+        String currentBucket = LocalDateTime.now().format(BUCKET_FORMAT);
+        int dropped = 0;
+        try (DirectoryStream<Path> buckets = Files.newDirectoryStream(ephemeralRoot, Files::isDirectory)) {
+            for (Path bucket : buckets) {
+                String name = bucket.getFileName().toString();
+                // Bucket names sort chronologically; anything unparseable is left alone
+                if (name.matches("\\d{10}") && name.compareTo(currentBucket) <= 0) {
+                    deleteRecursively(bucket);
+                    dropped++;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to sweep ephemeral buckets: {}", e.getMessage(), e);
+        }
+        return dropped;
+    }
+
+    // The hour by which everything in the bucket has expired: expiry rounded up to the hour
+    static String ephemeralBucketOf(LocalDateTime expiresAt) {
+        LocalDateTime hour = expiresAt.truncatedTo(ChronoUnit.HOURS);
+        if (hour.isBefore(expiresAt)) {
+            hour = hour.plusHours(1);
+        }
+        return hour.format(BUCKET_FORMAT);
+    }
+
+    private void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+        logger.info("Dropped ephemeral bucket: {}", directory);
+    }
+
+    /**
+     * @param permanent permanent files are reference-counted and sharded; ephemeral ones are
+     *                  neither, since their bucket directory is dropped as a whole
+     */
+    private String storeContentAddressed(MultipartFile file, Path directory, String urlPrefix, boolean permanent)
+            throws IOException {
         logger.info("Storing file: {}, size: {}", file.getOriginalFilename(), file.getSize());
-        
+        String fileExtension = extensionOf(file).toLowerCase(Locale.ROOT);
+
+        Path incomingDirectory = Files.createDirectories(this.fileStorageLocation.resolve(INCOMING_DIR));
+        Path incoming = incomingDirectory.resolve(UUID.randomUUID() + ".part");
+        String fileName;
+        try {
+            fileName = writeHashing(file, incoming) + fileExtension;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to store file: {}", e.getMessage(), e);
+            Files.deleteIfExists(incoming);
+            throw e;
+        }
+
+        String relativePath = permanent ? shardPrefixOf(fileName) + fileName : fileName;
+        Path targetLocation = directory.resolve(relativePath);
+        synchronized (lockFor(fileName)) {
+            boolean created = !Files.exists(targetLocation);
+            if (created) {
+                Files.createDirectories(targetLocation.getParent());
+                Files.move(incoming, targetLocation, StandardCopyOption.ATOMIC_MOVE);
+                logger.info("File stored successfully at: {}", targetLocation);
+            } else {
+                Files.deleteIfExists(incoming);
+                logger.info("Content already stored at: {}", targetLocation);
+            }
+            if (permanent) {
+                try {
+                    storedBlobRegistry.retain(fileName, Files.size(targetLocation));
+                } catch (RuntimeException e) {
+                    // Nothing refers to a file this call created; existing content keeps its references
+                    if (created) {
+                        unlink(targetLocation);
+                    }
+                    throw e;
+                }
+            }
+        }
+        return "/" + uploadBaseUrl + "/" + urlPrefix + relativePath;
+    }
+
+    /**
+     * Lands the upload in {@code target} through {@code Part.write}, like {@link #writeDurably},
+     * so a spooled part is renamed rather than copied. Then hashes it by reading the file's
+     * channel into a direct buffer, forces it to disk and returns the hex SHA-256 of the content.
+     */
+    private static String writeHashing(MultipartFile file, Path target) throws IOException {
+        file.transferTo(target.toFile());
+        MessageDigest sha256 = newSha256();
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_BYTES);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                sha256.update(buffer);
+                buffer.clear();
+            }
+            channel.force(true);
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        return newSha256().digest(bytes);
+    }
+
+    /**
+     * Two-level shard directory for a stored file name, e.g. {@code "3f/a9/"} for
+     * {@code 3fa94c...jpg}. UUID and digest names start with random hex, so their own first
+     * four characters are used; any other name is sharded by the hash of the name.
+     */
+    public static String shardPrefixOf(String fileName) {
+        String key = fileName.length() >= 4 && fileName.substring(0, 4).matches("[0-9a-f]{4}")
+                ? fileName
+                : HexFormat.of().formatHex(sha256(fileName.getBytes(StandardCharsets.UTF_8)));
+        return key.substring(0, 2) + "/" + key.substring(2, 4) + "/";
+    }
+
+    /**
+     * Resolves a path relative to the upload directory. Files from before sharding were
+     * stored flat under their bare name; when such a name is not found where its URL points,
+     * its sharded location is returned instead, so old URLs keep working while and after
+     * {@link UploadShardMigrator} moves the files.
+     */
+    public Path resolveStoredFile(String relativePath) {
+        Path path = this.fileStorageLocation.resolve(relativePath).normalize();
+        if (!path.startsWith(this.fileStorageLocation)) {
+            throw new IllegalArgumentException("Path escapes the upload directory: " + relativePath);
+        }
+        if (!relativePath.contains("/") && !Files.exists(path)) {
+            return this.fileStorageLocation.resolve(shardPrefixOf(relativePath) + relativePath);
+        }
+        return path;
+    }
+
+    public Path resolveStoredUrl(String fileUrl) {
+        return resolveStoredFile(fileUrl.substring(("/" + uploadBaseUrl + "/").length()));
+    }
+
+    /**
+     * Stores a file derived from an existing upload, such as a resized image, next to the
+     * original as {@code <original name>_<suffix>.<extension>}, and returns its URL.
+     */
+    public String storeDerivedFile(String originalUrl, String suffix, String extension, byte[] content)
+            throws IOException {
+        Path original = resolveStoredUrl(originalUrl);
+        String originalName = original.getFileName().toString();
+        int dot = originalName.indexOf('.');
+        String stem = dot >= 0 ? originalName.substring(0, dot) : originalName;
+        Path target = original.resolveSibling(stem + "_" + suffix + "." + extension);
+
+        Path incomingDirectory = Files.createDirectories(this.fileStorageLocation.resolve(INCOMING_DIR));
+        Path incoming = incomingDirectory.resolve(UUID.randomUUID() + ".part");
+        try {
+            Files.write(incoming, content, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            Files.move(incoming, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+        String relativePath = this.fileStorageLocation.relativize(target).toString().replace(File.separatorChar, '/');
+        return "/" + uploadBaseUrl + "/" + relativePath;
+    }
+
+    /**
+     * Names of the regular files still stored flat in the upload directory.
+     */
+    public List<String> listFlatFiles() throws IOException {
+        List<String> fileNames = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.fileStorageLocation, Files::isRegularFile)) {
+            for (Path entry : entries) {
+                String fileName = entry.getFileName().toString();
+                if (!fileName.startsWith(".")) {
+                    fileNames.add(fileName);
+                }
+            }
+        }
+        return fileNames;
+    }
+
+    /**
+     * Moves a flat file into its shard directory and returns its new URL, or {@code null}
+     * if the file is no longer there.
+     */
+    public String moveToShard(String fileName) throws IOException {
+        Path source = this.fileStorageLocation.resolve(fileName);
+        String relativePath = shardPrefixOf(fileName) + fileName;
+        Path target = this.fileStorageLocation.resolve(relativePath);
+        synchronized (lockFor(fileName)) {
+            if (!Files.exists(source)) {
+                return null;
+            }
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                // Same content was stored sharded in the meantime
+                Files.delete(source);
+            } else {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        return "/" + uploadBaseUrl + "/" + relativePath;
+    }
+
+    /**
+     * Whether a file that was stored under a flat name now lives only in its shard directory,
+     * so URLs naming it flat can be pointed at the shard.
+     */
+    public boolean isMovedToShard(String fileName) {
+        return !Files.exists(this.fileStorageLocation.resolve(fileName))
+                && Files.isRegularFile(this.fileStorageLocation.resolve(shardPrefixOf(fileName) + fileName));
+    }
+
+    public String urlOf(String fileName) {
+        return "/" + uploadBaseUrl + "/" + fileName;
+    }
+
+    private Object lockFor(String fileName) {
+        return blobLocks[Math.floorMod(fileName.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static String extensionOf(MultipartFile file) {
         // Normalize file name
         String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
         
@@ -70,23 +461,30 @@ public class FileStorageService {
             throw new RuntimeException("Filename contains invalid path sequence " + originalFileName);
         }
         
-        // Generate a unique file name to prevent conflicts
-        String fileExtension = "";
         if (originalFileName.contains(".")) {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+            return originalFileName.substring(originalFileName.lastIndexOf("."));
         }
-        String fileName = UUID.randomUUID().toString() + fileExtension;
+        return "";
+    }
+
+    private String store(MultipartFile file, Path directory, String urlPrefix, boolean sharded) throws IOException {
+        logger.info("Storing file: {}, size: {}", file.getOriginalFilename(), file.getSize());
+        
+        // Generate a unique file name to prevent conflicts
+        String fileName = UUID.randomUUID().toString() + extensionOf(file);
+        String relativePath = sharded ? shardPrefixOf(fileName) + fileName : fileName;
         
         // Copy file to the target location
-        Path targetLocation = this.fileStorageLocation.resolve(fileName);
+        Path targetLocation = directory.resolve(relativePath);
         logger.info("Copying file to: {}", targetLocation);
         
         try {
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            Files.createDirectories(targetLocation.getParent());
+            writeDurably(file, targetLocation);
             logger.info("File stored successfully at: {}", targetLocation);
             
             // Return the URL path to access the file
-            String fileUrl = "/" + uploadBaseUrl + "/" + fileName;
+            String fileUrl = "/" + uploadBaseUrl + "/" + urlPrefix + relativePath;
             logger.info("File URL: {}", fileUrl);
             return fileUrl;
         } catch (IOException e) {
@@ -95,15 +493,93 @@ public class FileStorageService {
         }
     }
     
-    public void deleteFile(String fileName) throws IOException {
+    /**
+     * Hands the upload to the container's {@code Part.write}, which renames a part spooled to
+     * disk into {@code target} instead of copying its bytes (parts small enough to be held in
+     * memory are written out directly), then forces the file to disk.
+     */
+    private void writeDurably(MultipartFile file, Path target) throws IOException {
+        try {
+            // The File overload goes through Part.write; the Path one is a plain stream copy
+            file.transferTo(target.toFile());
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                out.force(true);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ingestExecutor.shutdown();
+    }
+
+    /**
+     * Deletes a stored file and returns whether it is gone. A content-addressed file only
+     * loses one reference and is unlinked once nothing refers to it anymore; content-addressed
+     * ephemeral files may be shared within their bucket and are left for the bucket sweep.
+     */
+    public boolean deleteFile(String fileName) throws IOException {
+        return releaseFile(fileName) && unlinkReleasedFile(fileName);
+    }
+
+    /**
+     * First half of {@link #deleteFile}: gives up the caller's reference and returns whether
+     * the file should now be unlinked with {@link #unlinkReleasedFile}. Must be called once
+     * per reference; a release that threw has left the reference in place.
+     */
+    public boolean releaseFile(String fileName) {
         logger.info("Deleting file: {}", fileName);
-        
+        boolean shared = isContentAddressed(fileName);
+        if (shared && isEphemeral(fileName)) {
+            logger.info("Leaving {} to the ephemeral bucket sweep", fileName);
+            return false;
+        }
+        if (!shared) {
+            return true;
+        }
+        String blobName = blobNameOf(fileName);
+        synchronized (lockFor(blobName)) {
+            // References are counted per name, wherever in the layout the file sits
+            if (!storedBlobRegistry.release(blobName)) {
+                logger.info("File is still referenced, keeping: {}", fileName);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Second half of {@link #deleteFile}: unlinks a file whose reference has been released and
+     * returns whether it is gone. Safe to retry; a content-addressed file that has been stored
+     * again since the release is kept.
+     */
+    public boolean unlinkReleasedFile(String fileName) throws IOException {
         // Extract just the filename from the full path if needed
         if (fileName.startsWith("/" + uploadBaseUrl + "/")) {
             fileName = fileName.substring(("/" + uploadBaseUrl + "/").length());
         }
-        
-        Path filePath = this.fileStorageLocation.resolve(fileName);
+
+        // Locked by bare name, so a concurrent store or move into the shard layout cannot slip
+        // in between checking, resolving the path and unlinking it
+        String blobName = blobNameOf(fileName);
+        synchronized (lockFor(blobName)) {
+            if (isContentAddressed(fileName) && storedBlobRegistry.isReferenced(blobName)) {
+                logger.info("File was stored again since its release, keeping: {}", fileName);
+                return false;
+            }
+            unlink(resolveStoredFile(fileName));
+            return true;
+        }
+    }
+
+    private static String blobNameOf(String fileName) {
+        return fileName.substring(fileName.lastIndexOf('/') + 1);
+    }
+
+    private void unlink(Path filePath) throws IOException {
         logger.info("Deleting file at: {}", filePath);
         
         try {
@@ -0,0 +1,41 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.skillshare.platform.demo.repository.UserRepository;
+
+/**
+ * Repairs drift between the denormalized {@code followers_count}/{@code following_count}
+ * columns and the {@code user_followers} rows. Runs once at startup, which also fills the
+ * counters for users created before the columns existed, and then nightly. The follower
+ * leaderboard is rebuilt from the repaired counters each time.
+ */
+@Component
+@RequiredArgsConstructor
+public class FollowCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowCounterReconciler.class);
+
+    private final UserRepository userRepository;
+    private final ProfileCardCache profileCardCache;
+    private final FollowerLeaderboard followerLeaderboard;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${users.counters.reconcile-cron:0 45 3 * * *}")
+    @Transactional
+    public void reconcile() {
+        int repaired = userRepository.reconcileFollowCounters();
+        if (repaired > 0) {
+            logger.info("Repaired follow counters on {} users", repaired);
+            profileCardCache.clear();
+        }
+        followerLeaderboard.rebuild();
+    }
+}
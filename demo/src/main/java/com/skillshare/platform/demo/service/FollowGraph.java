@@ -0,0 +1,235 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of {@code user_followers} for membership checks.
+ *
+ * Each user maps to two sorted {@code long[]} adjacency lists (who they follow, who follows
+ * them), so an edge costs 16 bytes instead of a pair of boxed entries and a lookup is a
+ * binary search. Arrays are never modified once published: an edge change swaps in a new
+ * array under {@link ConcurrentHashMap#compute}, so readers need no locking.
+ *
+ * The graph is loaded on first use (and eagerly once the application is ready) and kept in
+ * sync by {@link UserService} after each follow/unfollow commits. Changes made by other
+ * application instances are only picked up on restart.
+ */
+@Component
+public class FollowGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowGraph.class);
+
+    private static final long[] EMPTY = new long[0];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, long[]> following = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> followers = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public FollowGraph(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("follow.graph.edges", following, map -> map.values().stream().mapToLong(ids -> ids.length).sum())
+                .description("Follow edges held in memory")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    public boolean isFollowing(Long followerId, Long followedId) {
+        if (followerId == null || followedId == null) {
+            return false;
+        }
+        ensureLoaded();
+        return Arrays.binarySearch(following.getOrDefault(followerId, EMPTY), followedId) >= 0;
+    }
+
+    /**
+     * Returns the subset of {@code candidateIds} that {@code followerId} follows.
+     */
+    public Set<Long> followedAmong(Long followerId, Collection<Long> candidateIds) {
+        Set<Long> result = new HashSet<>();
+        if (followerId == null || candidateIds.isEmpty()) {
+            return result;
+        }
+        ensureLoaded();
+        long[] followed = following.getOrDefault(followerId, EMPTY);
+        if (followed.length == 0) {
+            return result;
+        }
+        for (Long candidateId : candidateIds) {
+            if (candidateId != null && Arrays.binarySearch(followed, candidateId) >= 0) {
+                result.add(candidateId);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids the user follows, ascending. The returned array is shared and must not be modified.
+     */
+    public long[] following(Long userId) {
+        ensureLoaded();
+        return following.getOrDefault(userId, EMPTY);
+    }
+
+    /**
+     * Ids following the user, ascending. The returned array is shared and must not be modified.
+     */
+    public long[] followers(Long userId) {
+        ensureLoaded();
+        return followers.getOrDefault(userId, EMPTY);
+    }
+
+    public void recordFollowAfterCommit(Long followerId, Long followedId) {
+        afterCommit(() -> addEdge(followerId, followedId));
+    }
+
+    public void recordUnfollowAfterCommit(Long followerId, Long followedId) {
+        afterCommit(() -> removeEdge(followerId, followedId));
+    }
+
+    public void addEdge(Long followerId, Long followedId) {
+        ensureLoaded();
+        following.compute(followerId, (id, ids) -> insert(ids, followedId));
+        followers.compute(followedId, (id, ids) -> insert(ids, followerId));
+    }
+
+    public void removeEdge(Long followerId, Long followedId) {
+        ensureLoaded();
+        following.computeIfPresent(followerId, (id, ids) -> delete(ids, followedId));
+        followers.computeIfPresent(followedId, (id, ids) -> delete(ids, followerId));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            int edges = loadAdjacency("follower_id", "followed_id", following);
+            loadAdjacency("followed_id", "follower_id", followers);
+            loaded = true;
+            logger.info("Loaded follow graph: {} edges for {} users in {} ms",
+                    edges, following.size(), System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * Streams the edge table ordered by {@code keyColumn}, cutting each run of equal keys into
+     * one sorted array.
+     */
+    private int loadAdjacency(String keyColumn, String valueColumn, Map<Long, long[]> target) {
+        AdjacencyBuilder builder = new AdjacencyBuilder();
+        jdbcTemplate.query("SELECT " + keyColumn + ", " + valueColumn + " FROM user_followers ORDER BY "
+                + keyColumn + ", " + valueColumn, builder);
+        builder.finishRun();
+        target.putAll(builder.built);
+        return builder.edges;
+    }
+
+    private static class AdjacencyBuilder implements RowCallbackHandler {
+        private final Map<Long, long[]> built = new HashMap<>();
+        private long[] run = new long[16];
+        private int runSize;
+        private long runKey;
+        private int edges;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long key = rs.getLong(1);
+            if (runSize > 0 && key != runKey) {
+                finishRun();
+            }
+            runKey = key;
+            if (runSize == run.length) {
+                run = Arrays.copyOf(run, runSize * 2);
+            }
+            run[runSize++] = rs.getLong(2);
+            edges++;
+        }
+
+        void finishRun() {
+            if (runSize > 0) {
+                built.put(runKey, Arrays.copyOf(run, runSize));
+                runSize = 0;
+            }
+        }
+    }
+
+    /**
+     * Copy of the sorted {@code ids} with {@code id} added in order; {@code ids} itself when
+     * it already holds it.
+     */
+    static long[] insert(long[] ids, long id) {
+        if (ids == null) {
+            return new long[]{id};
+        }
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            return ids;
+        }
+        int insertAt = -index - 1;
+        long[] copy = new long[ids.length + 1];
+        System.arraycopy(ids, 0, copy, 0, insertAt);
+        copy[insertAt] = id;
+        System.arraycopy(ids, insertAt, copy, insertAt + 1, ids.length - insertAt);
+        return copy;
+    }
+
+    /**
+     * Copy of the sorted {@code ids} without {@code id}, or {@code null} once nothing is left.
+     */
+    static long[] delete(long[] ids, long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            // Returning null drops the key
+            return null;
+        }
+        long[] copy = new long[ids.length - 1];
+        System.arraycopy(ids, 0, copy, 0, index);
+        System.arraycopy(ids, index + 1, copy, index, ids.length - index - 1);
+        return copy;
+    }
+}
@@ -0,0 +1,188 @@
+package com.skillshare.platform.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.BiPredicate;
+
+/**
+ * Users ranked by follower count, maintained incrementally.
+ *
+ * A {@link TreeSet} ordered by (followers desc, id asc) serves top-K reads for any limit in
+ * O(K) and moves a user in O(log n) when their count changes. Rank lookups ("how many users
+ * have more followers") use a Fenwick tree indexed by follower count, so they are O(log n)
+ * too. Counts beyond the dense tree's range go to a second Fenwick tree over the rest of
+ * the int range, stored sparsely in a map since few users ever get there.
+ *
+ * Rebuilt from {@code users.followers_count} by {@link FollowCounterReconciler} at startup
+ * and nightly, and updated after each follow/unfollow or registration commits.
+ */
+@Component
+public class FollowerLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowerLeaderboard.class);
+
+    // Follower counts tracked by the dense Fenwick tree; larger counts go to the sparse one
+    private static final int FENWICK_RANGE = 1 << 16;
+    private static final long TAIL_RANGE = (1L << 31) - FENWICK_RANGE;
+
+    private static final Comparator<Entry> RANKING = Comparator.comparingInt(Entry::followers).reversed()
+            .thenComparingLong(Entry::userId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NavigableSet<Entry> ranking = new TreeSet<>(RANKING);
+    private final Map<Long, Integer> counts = new HashMap<>();
+    private long[] fenwick = new long[FENWICK_RANGE + 1];
+    private final Map<Long, Long> tailFenwick = new HashMap<>();
+    private int usersBeyondRange;
+
+    public FollowerLeaderboard(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public synchronized void rebuild() {
+        ranking.clear();
+        counts.clear();
+        fenwick = new long[FENWICK_RANGE + 1];
+        tailFenwick.clear();
+        usersBeyondRange = 0;
+        jdbcTemplate.query("SELECT id, followers_count FROM users",
+                rs -> { insert(rs.getLong(1), Math.max(0, rs.getInt(2))); });
+        logger.info("Built follower leaderboard for {} users", counts.size());
+    }
+
+    /**
+     * Ids of the {@code limit} most followed users, most followed first.
+     */
+    public synchronized List<Long> top(int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, counts.size()));
+        Iterator<Entry> iterator = ranking.iterator();
+        while (ids.size() < limit && iterator.hasNext()) {
+            ids.add(iterator.next().userId());
+        }
+        return ids;
+    }
+
+    /**
+     * Visits users from most to least followed, with their follower count, until
+     * {@code visitor} returns false. Runs under the leaderboard lock, so keep it short.
+     */
+    public synchronized void visitRanked(BiPredicate<Long, Integer> visitor) {
+        for (Entry entry : ranking) {
+            if (!visitor.test(entry.userId(), entry.followers())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 1-based competition rank (users tied on followers share a rank), or {@code null} for
+     * an unknown user.
+     */
+    public synchronized Long rank(Long userId) {
+        Integer followers = counts.get(userId);
+        if (followers == null) {
+            return null;
+        }
+        long ahead;
+        if (followers >= FENWICK_RANGE) {
+            ahead = usersBeyondRange - tailPrefixSum(followers);
+        } else {
+            ahead = usersBeyondRange + prefixSum(FENWICK_RANGE - 1) - prefixSum(followers);
+        }
+        return ahead + 1;
+    }
+
+    public synchronized Integer followers(Long userId) {
+        return counts.get(userId);
+    }
+
+    public void recordAfterCommit(Long userId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            adjust(userId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                adjust(userId, delta);
+            }
+        });
+    }
+
+    public synchronized void adjust(Long userId, int delta) {
+        Integer current = counts.get(userId);
+        if (current != null) {
+            remove(userId, current);
+        }
+        insert(userId, Math.max(0, (current != null ? current : 0) + delta));
+    }
+
+    private void insert(long userId, int followers) {
+        counts.put(userId, followers);
+        ranking.add(new Entry(userId, followers));
+        if (followers >= FENWICK_RANGE) {
+            usersBeyondRange++;
+            updateTail(followers, 1);
+        } else {
+            update(followers, 1);
+        }
+    }
+
+    private void remove(long userId, int followers) {
+        counts.remove(userId);
+        ranking.remove(new Entry(userId, followers));
+        if (followers >= FENWICK_RANGE) {
+            usersBeyondRange--;
+            updateTail(followers, -1);
+        } else {
+            update(followers, -1);
+        }
+    }
+
+    // Fenwick tree over follower counts 0..FENWICK_RANGE-1, stored 1-based
+    private void update(int followers, long delta) {
+        for (int i = followers + 1; i <= FENWICK_RANGE; i += i & -i) {
+            fenwick[i] += delta;
+        }
+    }
+
+    private long prefixSum(int followers) {
+        long sum = 0;
+        for (int i = followers + 1; i > 0; i -= i & -i) {
+            sum += fenwick[i];
+        }
+        return sum;
+    }
+
+    // Fenwick tree over follower counts FENWICK_RANGE..Integer.MAX_VALUE, stored 1-based;
+    // nodes that drop to zero are removed so the map only holds populated paths
+    private void updateTail(int followers, long delta) {
+        for (long i = followers - FENWICK_RANGE + 1L; i <= TAIL_RANGE; i += i & -i) {
+            tailFenwick.merge(i, delta, (current, change) -> current + change == 0 ? null : current + change);
+        }
+    }
+
+    private long tailPrefixSum(int followers) {
+        long sum = 0;
+        for (long i = followers - FENWICK_RANGE + 1L; i > 0; i -= i & -i) {
+            sum += tailFenwick.getOrDefault(i, 0L);
+        }
+        return sum;
+    }
+
+    private record Entry(long userId, int followers) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.skillshare.platform.demo.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel: timeouts are hashed by deadline tick into a ring of buckets, so
+ * scheduling is O(1) and advancing the clock only looks at the buckets whose ticks passed.
+ * A timeout further away than one revolution stays in its bucket until its own tick comes
+ * round; with a revolution of about an hour, a 24-hour story is looked at about 24 times.
+ *
+ * Not tied to a thread: callers drive it with {@link #advanceTo(long)}.
+ */
+public class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final ArrayDeque<Timeout<T>>[] buckets;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int ticksPerWheel, long startMillis) {
+        if (Integer.bitCount(ticksPerWheel) != 1) {
+            throw new IllegalArgumentException("ticksPerWheel must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = ticksPerWheel - 1;
+        this.buckets = new ArrayDeque[ticksPerWheel];
+        for (int i = 0; i < ticksPerWheel; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules {@code item} to expire at {@code deadlineMillis}. Deadlines already in the past
+     * expire on the next advance.
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long tick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        buckets[(int) (tick & mask)].add(new Timeout<>(item, tick));
+        size++;
+    }
+
+    /**
+     * Moves the clock to {@code nowMillis} and returns everything that expired on the way.
+     */
+    public synchronized List<T> advanceTo(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        // After a long pause one revolution visits every bucket
+        long lastTick = Math.min(targetTick, currentTick + mask + 1);
+        for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+            Iterator<Timeout<T>> iterator = buckets[(int) (tick & mask)].iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.deadlineTick <= targetTick) {
+                    iterator.remove();
+                    expired.add(timeout.item);
+                    size--;
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    private record Timeout<T>(T item, long deadlineTick) {
+    }
+}
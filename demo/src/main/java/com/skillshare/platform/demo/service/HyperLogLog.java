@@ -0,0 +1,51 @@
+package com.skillshare.platform.demo.service;
+
+/**
+ * HyperLogLog distinct counter with 2^10 one-byte registers: 1 KB per sketch and a standard
+ * error of about 3.3%. Small cardinalities fall back to linear counting, which is close to
+ * exact for the few hundred views most stories get.
+ *
+ * Adding is idempotent, so replaying the same ids (for instance when reloading a sketch from
+ * the database) never inflates the estimate.
+ */
+public class HyperLogLog {
+
+    private static final int PRECISION = 10;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    public synchronized void add(long value) {
+        long hash = splitMix64(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Rank of the first set bit in the remaining 54 bits, capped for an all-zero tail
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION), 64 - PRECISION) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public synchronized long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    private static long splitMix64(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,323 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.model.ImageVariant;
+import com.skillshare.platform.demo.repository.ImageVariantRepository;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Writes resized copies of uploaded images in the background and tells readers which ones
+ * are ready.
+ *
+ * Jobs run on a bounded pool ({@code media.variants.threads}, {@code media.variants.queue-capacity});
+ * when the queue is full a job is dropped and counted, and clients simply keep using the
+ * original. Ready variants per original URL are cached in an LRU cache, and a finished job
+ * evicts its original so the next read picks the new variants up. Images whose header
+ * declares more than {@code media.variants.max-pixels} pixels are skipped without decoding.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    public enum Purpose {
+        AVATAR, FEED, COVER
+    }
+
+    private static final Map<Purpose, List<VariantSpec>> SPECS = Map.of(
+            Purpose.AVATAR, List.of(new VariantSpec("avatar_64", 64, 64), new VariantSpec("avatar_128", 128, 128)),
+            Purpose.FEED, List.of(new VariantSpec("feed_480", 480, 0), new VariantSpec("feed_1080", 1080, 0)),
+            Purpose.COVER, List.of(new VariantSpec("cover_1500", 1500, 500)));
+
+    private final ImageVariantRepository imageVariantRepository;
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolExecutor executor;
+    private final LruCache<String, Map<String, String>> readyVariants;
+    private final Counter generated;
+    private final Counter rejected;
+    private final long maxPixels;
+
+    public ImageVariantService(ImageVariantRepository imageVariantRepository,
+                               FileStorageService fileStorageService,
+                               MeterRegistry meterRegistry,
+                               @Value("${media.variants.threads:2}") int threads,
+                               @Value("${media.variants.queue-capacity:100}") int queueCapacity,
+                               @Value("${media.variants.cache-size:10000}") int cacheSize,
+                               @Value("${media.variants.max-pixels:40000000}") long maxPixels) {
+        this.imageVariantRepository = imageVariantRepository;
+        this.fileStorageService = fileStorageService;
+        this.maxPixels = maxPixels;
+        this.readyVariants = new LruCache<>(cacheSize);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.generated = Counter.builder("media.variants.generated")
+                .description("Image variants written")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("media.variants.rejected")
+                .description("Variant jobs dropped because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the variants for {@code purpose} once the surrounding transaction commits, so
+     * nothing is generated for an upload whose row was rolled back.
+     */
+    public void generateAfterCommit(String originalUrl, Purpose purpose) {
+        if (!fileStorageService.isStored(originalUrl)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(originalUrl, purpose);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(originalUrl, purpose);
+            }
+        });
+    }
+
+    /**
+     * Ready variant URLs by variant name, for each of the given originals. Originals without
+     * any ready variant map to an empty map.
+     */
+    public Map<String, Map<String, String>> variantsOf(Collection<String> originalUrls) {
+        Map<String, Map<String, String>> variants = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String originalUrl : originalUrls) {
+            if (originalUrl == null || variants.containsKey(originalUrl)) {
+                continue;
+            }
+            Map<String, String> cached = readyVariants.get(originalUrl);
+            if (cached != null) {
+                variants.put(originalUrl, cached);
+            } else {
+                variants.put(originalUrl, Map.of());
+                missing.add(originalUrl);
+            }
+        }
+        if (missing.isEmpty()) {
+            return variants;
+        }
+
+        Map<String, Map<String, String>> loaded = imageVariantRepository.findByOriginalUrlIn(missing).stream()
+                .collect(Collectors.groupingBy(ImageVariant::getOriginalUrl,
+                        Collectors.toMap(ImageVariant::getVariant, ImageVariant::getUrl)));
+        for (String originalUrl : missing) {
+            Map<String, String> ready = Map.copyOf(loaded.getOrDefault(originalUrl, Map.of()));
+            readyVariants.put(originalUrl, ready);
+            variants.put(originalUrl, ready);
+        }
+        return variants;
+    }
+
+    public Map<String, String> variantsOf(String originalUrl) {
+        return originalUrl != null ? variantsOf(List.of(originalUrl)).get(originalUrl) : Map.of();
+    }
+
+    /**
+     * Removes the variant files and rows of an original that has been deleted. Failures are
+     * logged rather than thrown, since the original is already gone.
+     */
+    public void deleteVariants(String originalUrl) {
+        readyVariants.remove(originalUrl);
+        try {
+            List<ImageVariant> variants = imageVariantRepository.findByOriginalUrlIn(List.of(originalUrl));
+            for (ImageVariant variant : variants) {
+                try {
+                    fileStorageService.deleteFile(variant.getUrl());
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Could not delete variant {}: {}", variant.getUrl(), e.getMessage());
+                }
+            }
+            imageVariantRepository.deleteAll(variants);
+        } catch (RuntimeException e) {
+            logger.error("Failed to remove variants of {}: {}", originalUrl, e.getMessage(), e);
+        }
+    }
+
+    private void submit(String originalUrl, Purpose purpose) {
+        try {
+            executor.execute(() -> generate(originalUrl, purpose));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warn("Variant queue is full, serving originals only for {}", originalUrl);
+        }
+    }
+
+    private void generate(String originalUrl, Purpose purpose) {
+        try {
+            Path original = fileStorageService.resolveStoredUrl(originalUrl);
+            BufferedImage source = Files.isRegularFile(original) ? read(original, originalUrl) : null;
+            if (source == null) {
+                logger.debug("No readable image at {}, skipping variants", originalUrl);
+                return;
+            }
+            Set<String> existing = variantsOf(originalUrl).keySet();
+            boolean alpha = source.getColorModel().hasAlpha();
+            String format = alpha ? "png" : "jpg";
+
+            for (VariantSpec spec : SPECS.get(purpose)) {
+                // Originals already no wider than a fit-to-width size are served as they are
+                if (existing.contains(spec.name) || (spec.height == 0 && source.getWidth() <= spec.width)) {
+                    continue;
+                }
+                BufferedImage resized = resize(source, spec, alpha);
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+                ImageIO.write(resized, format, encoded);
+                String variantUrl = fileStorageService.storeDerivedFile(originalUrl, spec.name, format, encoded.toByteArray());
+                try {
+                    imageVariantRepository.save(ImageVariant.builder()
+                            .originalUrl(originalUrl)
+                            .variant(spec.name)
+                            .url(variantUrl)
+                            .width(resized.getWidth())
+                            .height(resized.getHeight())
+                            .build());
+                    generated.increment();
+                } catch (DataIntegrityViolationException e) {
+                    // Same content uploaded twice at once; the other job recorded it
+                    logger.debug("Variant {} of {} already recorded", spec.name, originalUrl);
+                }
+            }
+            readyVariants.remove(originalUrl);
+
+            // The original may have been deleted while its variants were being written
+            if (!Files.exists(original)) {
+                deleteVariants(originalUrl);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to generate variants for {}: {}", originalUrl, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes the image, or returns null when no reader understands it or its dimensions
+     * exceed the pixel limit. The dimensions come from the header, so a small file that
+     * would expand to a huge bitmap is rejected before any pixel data is allocated.
+     */
+    private BufferedImage read(Path file, String originalUrl) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    logger.warn("Image at {} has {} pixels, over the limit of {}; skipping variants",
+                            originalUrl, pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scales {@code source} to the spec: to its width keeping the aspect ratio when the spec
+     * has no height, otherwise to exactly width x height, cropping the overflow around the centre.
+     * Large reductions are done in halving steps, which keeps bicubic downscaling sharp.
+     */
+    private static BufferedImage resize(BufferedImage source, VariantSpec spec, boolean alpha) {
+        int cropX = 0;
+        int cropY = 0;
+        int cropWidth = source.getWidth();
+        int cropHeight = source.getHeight();
+        int width = spec.width;
+        int height;
+        if (spec.height == 0) {
+            height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        } else {
+            height = spec.height;
+            double scale = Math.max((double) width / cropWidth, (double) height / cropHeight);
+            cropWidth = Math.min(cropWidth, (int) Math.round(width / scale));
+            cropHeight = Math.min(cropHeight, (int) Math.round(height / scale));
+            cropX = (source.getWidth() - cropWidth) / 2;
+            cropY = (source.getHeight() - cropHeight) / 2;
+        }
+
+        BufferedImage current = source.getSubimage(cropX, cropY, cropWidth, cropHeight);
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        while (current.getWidth() / 2 >= width && current.getHeight() / 2 >= height) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, type);
+        }
+        return draw(current, width, height, type);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, int type) {
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class VariantSpec {
+        private final String name;
+        private final int width;
+        // 0 keeps the aspect ratio of the original
+        private final int height;
+
+        VariantSpec(String name, int width, int height) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
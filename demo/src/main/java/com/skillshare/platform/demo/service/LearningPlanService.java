@@ -2,10 +2,12 @@ package com.skillshare.platform.demo.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.skillshare.platform.demo.dto.AuthorSummary;
 import com.skillshare.platform.demo.dto.LearningPlanDTO;
 import com.skillshare.platform.demo.dto.request.LearningPlanRequest;
 import com.skillshare.platform.demo.dto.request.LearningPlanTopicRequest;
@@ -19,6 +21,7 @@ import com.skillshare.platform.demo.repository.UserRepository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,12 +31,11 @@ public class LearningPlanService {
     private final LearningPlanRepository learningPlanRepository;
     private final LearningPlanTopicRepository learningPlanTopicRepository;
     private final UserRepository userRepository;
+    private final AuthorSummaryService authorSummaryService;
 
     public List<LearningPlanDTO> getLearningPlansByUserId(Long userId) {
         List<LearningPlan> learningPlans = learningPlanRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return learningPlans.stream()
-                .map(LearningPlanDTO::fromLearningPlan)
-                .collect(Collectors.toList());
+        return mapLearningPlansToDTOs(learningPlans);
     }
 
     public LearningPlanDTO getLearningPlanById(Long id) {
@@ -45,7 +47,8 @@ public class LearningPlanService {
     public Page<LearningPlanDTO> searchLearningPlans(String query, Pageable pageable) {
         Page<LearningPlan> learningPlans = learningPlanRepository.findByTitleContainingOrderByCreatedAtDesc(query,
                 pageable);
-        return learningPlans.map(LearningPlanDTO::fromLearningPlan);
+        return new PageImpl<>(mapLearningPlansToDTOs(learningPlans.getContent()),
+                learningPlans.getPageable(), learningPlans.getTotalElements());
     }
 
     @Transactional
@@ -216,9 +219,7 @@ public void deleteLearningPlan(Long id, Long userId) {
             List<LearningPlan> plans = learningPlanRepository.findAll();
             System.out.println("Found " + plans.size() + " learning plans in repository");
 
-            List<LearningPlanDTO> dtos = plans.stream()
-                    .map(LearningPlanDTO::fromLearningPlan)
-                    .collect(Collectors.toList());
+            List<LearningPlanDTO> dtos = mapLearningPlansToDTOs(plans);
             System.out.println("Converted " + dtos.size() + " plans to DTOs");
             return dtos;
         } catch (Exception e) {
@@ -227,4 +228,12 @@ public void deleteLearningPlan(Long id, Long userId) {
             throw e;
         }
     }
+
+    private List<LearningPlanDTO> mapLearningPlansToDTOs(List<LearningPlan> learningPlans) {
+        Map<Long, AuthorSummary> authors = authorSummaryService.getSummaries(
+                learningPlans.stream().map(plan -> plan.getUser().getId()).collect(Collectors.toSet()));
+        return learningPlans.stream()
+                .map(plan -> LearningPlanDTO.fromLearningPlan(plan, authors.get(plan.getUser().getId())))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,193 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.exception.ResourceNotFoundException;
+import com.skillshare.platform.demo.repository.PostRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer for {@code posts.likes_count}.
+ *
+ * Like/unlike deltas are absorbed by a per-post {@link LongAdder} (itself striped across
+ * cells, so concurrent likes on one hot post do not contend on a single word or lock) and
+ * flushed to the database as one JDBC batch every {@code likes.counter.flush-interval-ms}.
+ * Reads combine the last persisted count with the pending delta, so they are at most one
+ * staleness window behind other application instances and exact for this one.
+ *
+ * A flushed delta stays in its adder until the batch has been written, and is then moved
+ * from the adder to the cached count under the write side of {@code flushLock}; reads hold
+ * the read side, so they see a delta either as pending or as persisted, never both. A failed
+ * batch therefore leaves its deltas pending for the next flush.
+ *
+ * An adder is evicted only after three consecutive flushes without traffic. A like that
+ * fetched it just before the eviction can still land on it, so an evicted adder is drained
+ * once more by the next flush and anything found there is recorded on a fresh adder. A delta
+ * can still be lost if the process dies between flushes; {@link PostCounterReconciler}
+ * repairs that.
+ */
+@Component
+public class LikeCounterBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounterBuffer.class);
+
+    private static final String FLUSH_SQL = "UPDATE posts SET likes_count = likes_count + ? WHERE id = ?";
+    private static final int IDLE_FLUSHES_BEFORE_EVICTION = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostRepository postRepository;
+    private final Map<Long, PendingLikes> pending = new ConcurrentHashMap<>();
+    private final Map<Long, PersistedCount> persisted = new ConcurrentHashMap<>();
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    // Adders evicted by the last flush, drained by the next one; only touched by flush()
+    private Map<Long, PendingLikes> evicted = new HashMap<>();
+    private final Counter flushedDeltas;
+
+    @Value("${likes.counter.max-staleness-ms:2000}")
+    private long maxStalenessMs;
+
+    public LikeCounterBuffer(JdbcTemplate jdbcTemplate, PostRepository postRepository, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postRepository = postRepository;
+        this.flushedDeltas = Counter.builder("likes.counter.flushed")
+                .description("Like counter updates written to the database")
+                .register(meterRegistry);
+        Gauge.builder("likes.counter.pending", pending, Map::size)
+                .description("Posts with like deltas waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a like/unlike delta once the surrounding transaction commits, so a rolled back
+     * like never reaches the counter.
+     */
+    public void recordAfterCommit(Long postId, int delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(postId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(postId, delta);
+            }
+        });
+    }
+
+    public void record(Long postId, long delta) {
+        // Only the first like on a post takes the map's bin lock; later ones just add
+        pending.computeIfAbsent(postId, id -> new PendingLikes()).delta.add(delta);
+    }
+
+    public long pendingDelta(Long postId) {
+        PendingLikes likes = pending.get(postId);
+        return likes != null ? likes.delta.sum() : 0;
+    }
+
+    public long currentCount(Long postId) {
+        flushLock.readLock().lock();
+        try {
+            long now = System.currentTimeMillis();
+            PersistedCount base = persisted.get(postId);
+            if (base == null || now - base.loadedAt > maxStalenessMs) {
+                int count = postRepository.findLikesCountById(postId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
+                base = new PersistedCount(count, now);
+                persisted.put(postId, base);
+            }
+            return base.value + pendingDelta(postId);
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${likes.counter.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        evicted.forEach((postId, likes) -> {
+            long late = likes.delta.sum();
+            if (late != 0) {
+                record(postId, late);
+            }
+        });
+        Map<Long, PendingLikes> idle = new HashMap<>();
+
+        List<Object[]> batch = new ArrayList<>();
+        List<PendingLikes> flushed = new ArrayList<>();
+        pending.forEach((postId, likes) -> {
+            long delta = likes.delta.sum();
+            if (delta != 0) {
+                likes.idleFlushes = 0;
+                batch.add(new Object[]{delta, postId});
+                flushed.add(likes);
+            } else if (++likes.idleFlushes >= IDLE_FLUSHES_BEFORE_EVICTION && pending.remove(postId, likes)) {
+                idle.put(postId, likes);
+            }
+        });
+        // Leftovers are moved by the next flush, after any like racing the removal has landed
+        evicted = idle;
+
+        long now = System.currentTimeMillis();
+        persisted.values().removeIf(count -> now - count.loadedAt > maxStalenessMs);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        flushLock.writeLock().lock();
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                long delta = (Long) batch.get(i)[0];
+                flushed.get(i).delta.add(-delta);
+                persisted.computeIfPresent((Long) batch.get(i)[1],
+                        (id, count) -> new PersistedCount(count.value + delta, count.loadedAt));
+            }
+            flushedDeltas.increment(batch.size());
+            logger.debug("Flushed like counters for {} posts", batch.size());
+        } catch (RuntimeException e) {
+            // The deltas were never taken out of their adders, so the next flush retries them
+            logger.error("Failed to flush like counters: {}", e.getMessage(), e);
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private static final class PendingLikes {
+        private final LongAdder delta = new LongAdder();
+        // Consecutive flushes that found nothing to write; only touched by flush()
+        private int idleFlushes;
+    }
+
+    private static final class PersistedCount {
+        private final long value;
+        private final long loadedAt;
+
+        PersistedCount(long value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -5,10 +5,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
-import com.skillshare.platform.demo.model.Like;
 import com.skillshare.platform.demo.model.NotificationType;
-import com.skillshare.platform.demo.model.Post;
-import com.skillshare.platform.demo.model.User;
 import com.skillshare.platform.demo.repository.LikeRepository;
 import com.skillshare.platform.demo.repository.PostRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
@@ -21,45 +18,44 @@ public class LikeService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final LikeCounterBuffer likeCounterBuffer;
 
     @Transactional
     public void likePost(Long postId, Long userId) {
-        if (likeRepository.existsByUserIdAndPostId(userId, postId)) {
-            return; // Already liked
+        // Idempotent insert guarded by the (user_id, post_id) unique index
+        if (likeRepository.insertIfAbsent(userId, postId) == 0) {
+            // Nothing inserted: either already liked, or the post does not exist
+            if (!postRepository.existsById(postId)) {
+                throw new ResourceNotFoundException("Post not found with id: " + postId);
+            }
+            return;
         }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
-
-        Like like = Like.builder()
-                .user(user)
-                .post(post)
-                .build();
-
-        likeRepository.save(like);
+        likeCounterBuffer.recordAfterCommit(postId, 1);
 
         // Send notification to post owner if it's not the same user
-        if (!post.getUser().getId().equals(userId)) {
+        Long postOwnerId = postRepository.findAuthorIdById(postId).orElse(null);
+        if (postOwnerId != null && !postOwnerId.equals(userId)) {
+            String username = userRepository.findUsernameById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
             notificationService.createNotification(
-                    post.getUser().getId(),
-                    user.getUsername() + " liked your post",
+                    postOwnerId,
+                    username + " liked your post",
                     NotificationType.LIKE,
-                    post.getId()
+                    postId
             );
         }
     }
 
     @Transactional
     public void unlikePost(Long postId, Long userId) {
-        likeRepository.findByUserIdAndPostId(userId, postId)
-                .ifPresent(likeRepository::delete);
+        if (likeRepository.deleteByUserIdAndPostId(userId, postId) > 0) {
+            likeCounterBuffer.recordAfterCommit(postId, -1);
+        }
     }
 
     public long getLikesCount(Long postId) {
-        return likeRepository.countByPostId(postId);
+        return likeCounterBuffer.currentCount(postId);
     }
 
     public boolean isPostLikedByUser(Long postId, Long userId) {
@@ -0,0 +1,32 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import com.skillshare.platform.demo.dto.PostDTO;
+import com.skillshare.platform.demo.repository.LikeRepository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves {@link PostDTO#isLiked()} for a page of posts with a single IN query.
+ */
+@Component
+@RequiredArgsConstructor
+public class LikedPostViewerStateResolver implements PostViewerStateResolver {
+
+    private final LikeRepository likeRepository;
+
+    @Override
+    public void resolve(Long viewerId, List<PostDTO> posts) {
+        if (viewerId == null || posts.isEmpty()) {
+            return;
+        }
+        List<Long> postIds = posts.stream().map(PostDTO::getId).collect(Collectors.toList());
+        Set<Long> likedPostIds = new HashSet<>(likeRepository.findLikedPostIds(viewerId, postIds));
+        posts.forEach(post -> post.setLiked(likedPostIds.contains(post.getId())));
+    }
+}
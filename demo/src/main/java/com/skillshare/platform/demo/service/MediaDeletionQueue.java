@@ -0,0 +1,119 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes media files off the request and expiry paths. The file's reference is released
+ * exactly once; only unlinking the file is retried, with exponential backoff starting at
+ * {@code media.delete.retry-delay-ms}, up to {@code media.delete.max-attempts} times, after
+ * which it is logged and given up on. Retrying the release could drop a reference that
+ * another post, story or avatar still holds, so a failed release leaves the file in place.
+ */
+@Component
+public class MediaDeletionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaDeletionQueue.class);
+
+    private final FileStorageService fileStorageService;
+    private final ImageVariantService imageVariantService;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "media-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Counter failures;
+
+    @Value("${media.delete.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${media.delete.retry-delay-ms:1000}")
+    private long retryDelayMs;
+
+    public MediaDeletionQueue(FileStorageService fileStorageService,
+                              ImageVariantService imageVariantService,
+                              MeterRegistry meterRegistry) {
+        this.fileStorageService = fileStorageService;
+        this.imageVariantService = imageVariantService;
+        this.failures = Counter.builder("media.delete.failures")
+                .description("Media files that could not be deleted after all retries")
+                .register(meterRegistry);
+    }
+
+    public void deleteAfterCommit(String mediaUrl) {
+        deleteAllAfterCommit(List.of(mediaUrl));
+    }
+
+    /**
+     * Queues the files once the surrounding transaction commits, so a rolled back delete
+     * never loses media still referenced by a row.
+     */
+    public void deleteAllAfterCommit(Collection<String> mediaUrls) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            mediaUrls.forEach(this::delete);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                mediaUrls.forEach(MediaDeletionQueue.this::delete);
+            }
+        });
+    }
+
+    public void delete(String mediaUrl) {
+        if (mediaUrl != null) {
+            executor.execute(() -> release(mediaUrl));
+        }
+    }
+
+    private void release(String mediaUrl) {
+        boolean unreferenced;
+        try {
+            unreferenced = fileStorageService.releaseFile(mediaUrl);
+        } catch (RuntimeException e) {
+            failures.increment();
+            logger.error("Could not release {}, keeping the file: {}", mediaUrl, e.getMessage());
+            return;
+        }
+        if (unreferenced) {
+            unlink(mediaUrl, 1);
+        }
+    }
+
+    private void unlink(String mediaUrl, int attempt) {
+        try {
+            if (fileStorageService.unlinkReleasedFile(mediaUrl)) {
+                imageVariantService.deleteVariants(mediaUrl);
+            }
+        } catch (IOException | RuntimeException e) {
+            if (attempt >= maxAttempts) {
+                failures.increment();
+                logger.error("Giving up deleting {} after {} attempts: {}", mediaUrl, attempt, e.getMessage());
+                return;
+            }
+            long delay = retryDelayMs << (attempt - 1);
+            logger.warn("Deleting {} failed (attempt {}), retrying in {} ms: {}", mediaUrl, attempt, delay, e.getMessage());
+            executor.schedule(() -> unlink(mediaUrl, attempt + 1), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
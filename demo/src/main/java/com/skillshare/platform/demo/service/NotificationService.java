@@ -3,11 +3,14 @@ package com.skillshare.platform.demo.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.NotificationDTO;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.Notification;
 import com.skillshare.platform.demo.model.NotificationType;
@@ -15,6 +18,9 @@ import com.skillshare.platform.demo.model.User;
 import com.skillshare.platform.demo.repository.NotificationRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -28,6 +34,14 @@ public class NotificationService {
         return notifications.map(NotificationDTO::fromNotification);
     }
 
+    public CursorPage<NotificationDTO> getUserNotificationsBefore(Long userId, Cursor cursor, int size) {
+        List<Notification> notifications = notificationRepository.findByUserIdBefore(
+                userId, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size + 1));
+        return CursorPage.fromRows(notifications, size,
+                notification -> new Cursor(notification.getCreatedAt(), notification.getId()),
+                page -> page.stream().map(NotificationDTO::fromNotification).collect(Collectors.toList()));
+    }
+
     public long getUnreadNotificationsCount(Long userId) {
         return notificationRepository.countByUserIdAndReadFalse(userId);
     }
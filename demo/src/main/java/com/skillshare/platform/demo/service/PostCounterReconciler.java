@@ -0,0 +1,39 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.skillshare.platform.demo.repository.PostRepository;
+
+/**
+ * Repairs drift between the denormalized {@code likes_count}/{@code comments_count}
+ * columns and the actual like and comment rows. Runs once at startup, which also fills
+ * the counters for posts created before the columns existed, and then nightly. Pending
+ * like deltas are flushed first so they are not counted twice.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterReconciler.class);
+
+    private final PostRepository postRepository;
+    private final LikeCounterBuffer likeCounterBuffer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${posts.counters.reconcile-cron:0 30 3 * * *}")
+    @Transactional
+    public void reconcile() {
+        likeCounterBuffer.flush();
+        int repaired = postRepository.reconcileCounters();
+        if (repaired > 0) {
+            logger.info("Repaired like/comment counters on {} posts", repaired);
+        }
+    }
+}
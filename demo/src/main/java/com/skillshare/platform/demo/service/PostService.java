@@ -2,19 +2,25 @@ package com.skillshare.platform.demo.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.skillshare.platform.demo.dto.AuthorSummary;
+import com.skillshare.platform.demo.dto.Cursor;
+import com.skillshare.platform.demo.dto.MediaDTO;
 import com.skillshare.platform.demo.dto.PostDTO;
 import com.skillshare.platform.demo.dto.request.PostRequest;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.Media;
 import com.skillshare.platform.demo.model.MediaType;
 import com.skillshare.platform.demo.model.Post;
 import com.skillshare.platform.demo.model.User;
-import com.skillshare.platform.demo.repository.LikeRepository;
 import com.skillshare.platform.demo.repository.MediaRepository;
 import com.skillshare.platform.demo.repository.PostRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
@@ -22,6 +28,7 @@ import com.skillshare.platform.demo.repository.UserRepository;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,13 +38,19 @@ public class PostService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final MediaRepository mediaRepository;
-    private final LikeRepository likeRepository;
     private final FileStorageService fileStorageService;
     private final NotificationService notificationService;
+    private final TimelineService timelineService;
+    private final List<PostViewerStateResolver> viewerStateResolvers;
+    private final LikeCounterBuffer likeCounterBuffer;
+    private final AuthorSummaryService authorSummaryService;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageVariantService imageVariantService;
 
     public Page<PostDTO> getAllPosts(Pageable pageable, Long currentUserId) {
         Page<Post> posts = postRepository.findAll(pageable);
-        return posts.map(post -> mapPostToDTO(post, currentUserId));
+        return mapPostPage(posts, currentUserId);
     }
 
     public PostDTO getPostById(Long id, Long currentUserId) {
@@ -48,38 +61,82 @@ public class PostService {
 
     public Page<PostDTO> getPostsByUserId(Long userId, Pageable pageable, Long currentUserId) {
         Page<Post> posts = postRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-        return posts.map(post -> mapPostToDTO(post, currentUserId));
+        return mapPostPage(posts, currentUserId);
     }
 
     public Page<PostDTO> getFeedPosts(Long userId, Pageable pageable) {
-        Page<Post> posts = postRepository.findFeedPostsByUserId(userId, pageable);
-        return posts.map(post -> mapPostToDTO(post, userId));
+        Page<Post> posts = timelineService.getTimeline(userId, pageable);
+        return mapPostPage(posts, userId);
     }
 
     public Page<PostDTO> searchPosts(String query, Pageable pageable, Long currentUserId) {
         Page<Post> posts = postRepository.searchPosts(query, pageable);
-        return posts.map(post -> mapPostToDTO(post, currentUserId));
+        return mapPostPage(posts, currentUserId);
     }
 
-    @Transactional
-    public PostDTO createPost(PostRequest postRequest, Long userId, List<MultipartFile> files) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+    public CursorPage<PostDTO> getAllPostsBefore(Cursor cursor, int size, Long currentUserId) {
+        List<Post> posts = postRepository.findPostsBefore(
+                cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size + 1));
+        return toCursorPage(posts, size, currentUserId);
+    }
 
-        Post post = Post.builder()
-                .user(user)
-                .content(postRequest.getContent())
-                .type(postRequest.getType())
-                .media(new ArrayList<>())
-                .build();
+    public CursorPage<PostDTO> getPostsByUserIdBefore(Long userId, Cursor cursor, int size, Long currentUserId) {
+        List<Post> posts = postRepository.findPostsByUserIdBefore(
+                userId, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size + 1));
+        return toCursorPage(posts, size, currentUserId);
+    }
 
-        Post savedPost = postRepository.save(post);
+    public CursorPage<PostDTO> getFeedPostsBefore(Long userId, Cursor cursor, int size) {
+        List<Post> posts = timelineService.getTimelineBefore(userId, cursor, size + 1);
+        return toCursorPage(posts, size, userId);
+    }
+
+    /**
+     * Writes the media files first, in parallel and outside any transaction, and only then
+     * opens the transaction that inserts the post. Files of a post that fails to save are
+     * removed again.
+     */
+    public PostDTO createPost(PostRequest postRequest, Long userId, List<MultipartFile> files) {
+        // No user lookup before the upload: under open-in-view it would pin a pooled connection
+        // for the whole write. An unknown user fails inside the transaction and the files are
+        // deleted again.
 
-        if (files != null && !files.isEmpty()) {
-            processAndSaveMedia(savedPost, files);
+        // Limit to 3 files
+        List<MultipartFile> limitedFiles = files == null ? List.of() : files.size() > 3 ? files.subList(0, 3) : files;
+        List<String> fileUrls;
+        try {
+            fileUrls = fileStorageService.storeFiles(limitedFiles);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store file", e);
         }
 
-        return mapPostToDTO(savedPost, userId);
+        try {
+            return transactionTemplate.execute(status -> {
+                User user = userRepository.findById(userId)
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+
+                Post post = Post.builder()
+                        .user(user)
+                        .content(postRequest.getContent())
+                        .type(postRequest.getType())
+                        .media(new ArrayList<>())
+                        .build();
+
+                Post savedPost = postRepository.save(post);
+                saveMedia(savedPost, limitedFiles, fileUrls);
+                savedPost.getMedia().stream()
+                        .filter(media -> media.getType() == MediaType.IMAGE)
+                        .forEach(media -> imageVariantService.generateAfterCommit(media.getUrl(),
+                                ImageVariantService.Purpose.FEED));
+
+                timelineService.fanOutPost(savedPost);
+
+                return mapPostToDTO(savedPost, userId);
+            });
+        } catch (RuntimeException e) {
+            fileUrls.forEach(mediaDeletionQueue::delete);
+            throw e;
+        }
     }
 
     @Transactional
@@ -107,39 +164,28 @@ public class PostService {
             throw new IllegalArgumentException("You are not authorized to delete this post");
         }
 
-        // Delete associated media files
-        mediaRepository.findByPostId(id).forEach(media -> {
-            try {
-                fileStorageService.deleteFile(media.getUrl());
-            } catch (IOException e) {
-                // Log error but continue with deletion
-                System.err.println("Error deleting file: " + e.getMessage());
-            }
-        });
+        // Media files are released once the post is gone; shared content keeps its file
+        mediaDeletionQueue.deleteAllAfterCommit(mediaRepository.findByPostId(id).stream()
+                .map(Media::getUrl)
+                .collect(Collectors.toList()));
+
+        timelineService.removePost(post);
 
         postRepository.delete(post);
     }
 
-    private void processAndSaveMedia(Post post, List<MultipartFile> files) {
-        // Limit to 3 files
-        List<MultipartFile> limitedFiles = files.size() > 3 ? files.subList(0, 3) : files;
+    private void saveMedia(Post post, List<MultipartFile> files, List<String> fileUrls) {
+        for (int i = 0; i < files.size(); i++) {
+            MediaType mediaType = determineMediaType(files.get(i).getContentType());
 
-        for (MultipartFile file : limitedFiles) {
-            try {
-                String fileUrl = fileStorageService.storeFile(file);
-                MediaType mediaType = determineMediaType(file.getContentType());
+            Media media = Media.builder()
+                    .post(post)
+                    .url(fileUrls.get(i))
+                    .type(mediaType)
+                    .build();
 
-                Media media = Media.builder()
-                        .post(post)
-                        .url(fileUrl)
-                        .type(mediaType)
-                        .build();
-
-                mediaRepository.save(media);
-                post.getMedia().add(media);
-            } catch (IOException e) {
-                throw new RuntimeException("Could not store file", e);
-            }
+            mediaRepository.save(media);
+            post.getMedia().add(media);
         }
     }
 
@@ -154,11 +200,36 @@ public class PostService {
         return MediaType.IMAGE; // Default to image
     }
 
+    private CursorPage<PostDTO> toCursorPage(List<Post> posts, int size, Long currentUserId) {
+        return CursorPage.fromRows(posts, size,
+                post -> new Cursor(post.getCreatedAt(), post.getId()),
+                page -> mapPostsToDTOs(page, currentUserId));
+    }
+
+    private Page<PostDTO> mapPostPage(Page<Post> posts, Long currentUserId) {
+        return new PageImpl<>(mapPostsToDTOs(posts.getContent(), currentUserId),
+                posts.getPageable(), posts.getTotalElements());
+    }
+
+    private List<PostDTO> mapPostsToDTOs(List<Post> posts, Long currentUserId) {
+        Map<Long, AuthorSummary> authors = authorSummaryService.getSummaries(
+                posts.stream().map(post -> post.getUser().getId()).collect(Collectors.toSet()));
+        List<PostDTO> dtos = posts.stream()
+                .map(post -> PostDTO.fromPost(post, authors.get(post.getUser().getId())))
+                .collect(Collectors.toList());
+        Map<String, Map<String, String>> variants = imageVariantService.variantsOf(dtos.stream()
+                .flatMap(dto -> dto.getMedia().stream())
+                .map(MediaDTO::getUrl)
+                .collect(Collectors.toSet()));
+        dtos.forEach(dto -> dto.getMedia().forEach(media -> media.setVariants(variants.get(media.getUrl()))));
+        // Likes not yet flushed by the write-behind buffer
+        dtos.forEach(dto -> dto.setLikesCount(dto.getLikesCount() + (int) likeCounterBuffer.pendingDelta(dto.getId())));
+        // Per-viewer flags are resolved for the whole page at once
+        viewerStateResolvers.forEach(resolver -> resolver.resolve(currentUserId, dtos));
+        return dtos;
+    }
+
     private PostDTO mapPostToDTO(Post post, Long currentUserId) {
-        boolean isLiked = false;
-        if (currentUserId != null) {
-            isLiked = likeRepository.existsByUserIdAndPostId(currentUserId, post.getId());
-        }
-        return PostDTO.fromPost(post, isLiked);
+        return mapPostsToDTOs(List.of(post), currentUserId).get(0);
     }
 }
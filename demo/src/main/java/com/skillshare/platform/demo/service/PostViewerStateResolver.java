@@ -0,0 +1,16 @@
+package com.skillshare.platform.demo.service;
+
+import java.util.List;
+
+import com.skillshare.platform.demo.dto.PostDTO;
+
+/**
+ * Fills in per-viewer flags on a page of already mapped posts. Implementations are
+ * expected to resolve the whole page at once (one query or one in-memory lookup),
+ * never one post at a time. Every implementation registered as a bean is applied by
+ * {@link PostService} when it maps posts for a viewer.
+ */
+public interface PostViewerStateResolver {
+
+    void resolve(Long viewerId, List<PostDTO> posts);
+}
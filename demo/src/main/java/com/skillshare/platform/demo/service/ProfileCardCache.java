@@ -0,0 +1,74 @@
+package com.skillshare.platform.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.dto.UserDTO;
+
+/**
+ * Bounded LRU cache of profile cards, addressable by user id and by username. Cards hold
+ * only viewer-independent fields; {@code isFollowing} and {@code hasActiveStories} are
+ * filled in per request on the copy handed out by {@link #get}.
+ */
+@Component
+public class ProfileCardCache {
+
+    private final LruCache<Long, UserDTO> byId;
+    private final LruCache<String, Long> idsByUsername;
+
+    public ProfileCardCache(@Value("${users.profile-cache.max-size:10000}") int maxSize) {
+        this.byId = new LruCache<>(maxSize);
+        this.idsByUsername = new LruCache<>(maxSize);
+    }
+
+    public UserDTO get(Long userId) {
+        UserDTO card = byId.get(userId);
+        return card != null ? card.toBuilder().build() : null;
+    }
+
+    public UserDTO getByUsername(String username) {
+        Long userId = idsByUsername.get(username);
+        if (userId == null) {
+            return null;
+        }
+        UserDTO card = get(userId);
+        // The mapping may outlive a rename
+        return card != null && username.equals(card.getUsername()) ? card : null;
+    }
+
+    public void put(UserDTO card) {
+        UserDTO copy = card.toBuilder().isFollowing(false).hasActiveStories(false).build();
+        byId.put(copy.getId(), copy);
+        idsByUsername.put(copy.getUsername(), copy.getId());
+    }
+
+    public void invalidate(Long userId) {
+        UserDTO card = byId.remove(userId);
+        if (card != null) {
+            idsByUsername.remove(card.getUsername());
+        }
+    }
+
+    /**
+     * Invalidates now and again once the surrounding transaction commits, so a card
+     * re-read by a concurrent request before the commit is not kept.
+     */
+    public void invalidateAfterCommit(Long userId) {
+        invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(userId);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        byId.clear();
+        idsByUsername.clear();
+    }
+}
@@ -0,0 +1,66 @@
+package com.skillshare.platform.demo.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Reference counts for content-addressed uploads, kept in {@code stored_blobs}.
+ *
+ * Callers serialize {@link #retain} and {@link #release} per blob (see the lock stripes in
+ * {@link FileStorageService}), so the file on disk and its row never disagree about whether
+ * the blob is still in use. Statements run in the caller's transaction when there is one.
+ *
+ * {@link #release} is not idempotent: calling it twice for one reference drops a reference
+ * some other row still holds. It therefore runs as a single transaction, so a failure leaves
+ * the count untouched, and callers must never retry it after it has returned.
+ */
+@Component
+public class StoredBlobRegistry {
+
+    private static final String RETAIN_SQL =
+            "INSERT INTO stored_blobs (name, size_bytes, ref_count, created_at) VALUES (?, ?, 1, NOW()) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public StoredBlobRegistry(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public void retain(String name, long sizeBytes) {
+        jdbcTemplate.update(RETAIN_SQL, name, sizeBytes);
+    }
+
+    /**
+     * Drops one reference and returns whether the blob is no longer referenced at all, in
+     * which case its file can be unlinked.
+     */
+    public boolean release(String name) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            // The row lock keeps other instances from retaining or releasing in between
+            List<Integer> refCounts = jdbcTemplate.queryForList(
+                    "SELECT ref_count FROM stored_blobs WHERE name = ? FOR UPDATE", Integer.class, name);
+            if (refCounts.isEmpty() || refCounts.get(0) <= 1) {
+                jdbcTemplate.update("DELETE FROM stored_blobs WHERE name = ?", name);
+                return true;
+            }
+            jdbcTemplate.update("UPDATE stored_blobs SET ref_count = ref_count - 1 WHERE name = ?", name);
+            return false;
+        }));
+    }
+
+    /**
+     * Whether any reference to the blob is left. Used before unlinking a released blob again,
+     * since the same content may have been stored anew in the meantime.
+     */
+    public boolean isReferenced(String name) {
+        Integer references = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM stored_blobs WHERE name = ?", Integer.class, name);
+        return references != null && references > 0;
+    }
+}
@@ -0,0 +1,162 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.skillshare.platform.demo.repository.StoryRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes stories when they expire.
+ *
+ * Every story is scheduled on a {@link HashedTimingWheel} at its {@code expires_at}: seeded from
+ * the table at startup (which also catches up on anything that expired while the application
+ * was down) and fed by {@link StoryService#createStory} afterwards. Each tick, due stories are
+ * deleted in chunks of {@code stories.expiry.batch-size}, one transaction per chunk, viewer rows
+ * first. Media in the ephemeral tier is left to {@link EphemeralStorageJanitor}; anything else
+ * is handed to {@link MediaDeletionQueue} once the chunk commits.
+ */
+@Component
+public class StoryExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoryExpiryScheduler.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StoryRepository storyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final FileStorageService fileStorageService;
+    private final StoryPresenceIndex storyPresenceIndex;
+    private final StoryViewLog storyViewLog;
+    private final StorySeenIndex storySeenIndex;
+    private final HashedTimingWheel<Long> wheel;
+    private final Queue<Long> due = new ConcurrentLinkedQueue<>();
+    private final Counter deleted;
+
+    @Value("${stories.expiry.batch-size:500}")
+    private int batchSize;
+
+    public StoryExpiryScheduler(JdbcTemplate jdbcTemplate,
+                                StoryRepository storyRepository,
+                                PlatformTransactionManager transactionManager,
+                                MediaDeletionQueue mediaDeletionQueue,
+                                FileStorageService fileStorageService,
+                                StoryPresenceIndex storyPresenceIndex,
+                                StoryViewLog storyViewLog,
+                                StorySeenIndex storySeenIndex,
+                                MeterRegistry meterRegistry,
+                                @Value("${stories.expiry.tick-ms:1000}") long tickMillis,
+                                @Value("${stories.expiry.ticks-per-wheel:4096}") int ticksPerWheel) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storyRepository = storyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mediaDeletionQueue = mediaDeletionQueue;
+        this.fileStorageService = fileStorageService;
+        this.storyPresenceIndex = storyPresenceIndex;
+        this.storyViewLog = storyViewLog;
+        this.storySeenIndex = storySeenIndex;
+        this.wheel = new HashedTimingWheel<>(tickMillis, ticksPerWheel, System.currentTimeMillis());
+        this.deleted = Counter.builder("stories.expiry.deleted")
+                .description("Expired stories deleted")
+                .register(meterRegistry);
+        Gauge.builder("stories.expiry.scheduled", wheel, HashedTimingWheel::size)
+                .description("Stories waiting for their expiry")
+                .register(meterRegistry);
+        Gauge.builder("stories.expiry.backlog", due, Queue::size)
+                .description("Expired stories not deleted yet")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        jdbcTemplate.query("SELECT id, expires_at FROM stories", rs -> {
+            wheel.schedule(rs.getLong(1), toEpochMillis(rs.getTimestamp(2).toLocalDateTime()));
+        });
+        logger.info("Scheduled expiry for {} stories", wheel.size());
+    }
+
+    public void scheduleAfterCommit(Long storyId, LocalDateTime expiresAt) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            wheel.schedule(storyId, toEpochMillis(expiresAt));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wheel.schedule(storyId, toEpochMillis(expiresAt));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${stories.expiry.tick-ms:1000}")
+    public void tick() {
+        due.addAll(wheel.advanceTo(System.currentTimeMillis()));
+        int total = 0;
+        List<Long> chunk;
+        while (!(chunk = drainChunk()).isEmpty()) {
+            try {
+                total += deleteChunk(chunk);
+            } catch (RuntimeException e) {
+                // Leave the chunk for the next tick
+                due.addAll(chunk);
+                logger.error("Failed to delete {} expired stories: {}", chunk.size(), e.getMessage());
+                break;
+            }
+        }
+        if (total > 0) {
+            storyPresenceIndex.evictExpired();
+            storySeenIndex.rebase();
+            logger.info("Deleted {} expired stories", total);
+        }
+    }
+
+    private List<Long> drainChunk() {
+        List<Long> chunk = new ArrayList<>(batchSize);
+        Long id;
+        while (chunk.size() < batchSize && (id = due.poll()) != null) {
+            chunk.add(id);
+        }
+        return chunk;
+    }
+
+    private int deleteChunk(List<Long> storyIds) {
+        Integer count = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            // Ephemeral media goes with its hour bucket; only older, flat-stored media is deleted per file
+            List<String> mediaUrls = storyRepository.findExpiredMediaUrls(storyIds, now).stream()
+                    .filter(url -> !fileStorageService.isEphemeral(url))
+                    .collect(Collectors.toList());
+            storyRepository.deleteViewersByStoryIds(storyIds);
+            int removed = storyRepository.deleteExpiredByIds(storyIds, now);
+            mediaDeletionQueue.deleteAllAfterCommit(mediaUrls);
+            return removed;
+        });
+        storyViewLog.forget(storyIds);
+        deleted.increment(count != null ? count : 0);
+        return count != null ? count : 0;
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
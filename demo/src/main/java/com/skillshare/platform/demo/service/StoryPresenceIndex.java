@@ -0,0 +1,125 @@
+package com.skillshare.platform.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.repository.StoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which users currently have an active story, as user id to the expiry of their latest one.
+ * A user has active stories while that expiry is in the future, so expiry needs no event;
+ * {@link #evictExpired()}, called after expired stories are deleted, only reclaims memory.
+ *
+ * Loaded on first use and kept current by {@link StoryService} after stories are created or
+ * deleted. Deleting a story re-reads the author's latest expiry, since the deleted story may
+ * have been the one that set it.
+ */
+@Component
+public class StoryPresenceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoryPresenceIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StoryRepository storyRepository;
+    private final Map<Long, LocalDateTime> latestExpiry = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public StoryPresenceIndex(JdbcTemplate jdbcTemplate, StoryRepository storyRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storyRepository = storyRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    public boolean hasActiveStories(Long userId) {
+        ensureLoaded();
+        LocalDateTime expiry = latestExpiry.get(userId);
+        return expiry != null && expiry.isAfter(LocalDateTime.now());
+    }
+
+    /**
+     * Returns the subset of {@code userIds} with at least one active story.
+     */
+    public Set<Long> withActiveStories(Collection<Long> userIds) {
+        ensureLoaded();
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> result = new HashSet<>();
+        for (Long userId : userIds) {
+            LocalDateTime expiry = latestExpiry.get(userId);
+            if (expiry != null && expiry.isAfter(now)) {
+                result.add(userId);
+            }
+        }
+        return result;
+    }
+
+    public void recordCreatedAfterCommit(Long userId, LocalDateTime expiresAt) {
+        afterCommit(() -> {
+            ensureLoaded();
+            latestExpiry.merge(userId, expiresAt, (current, added) -> added.isAfter(current) ? added : current);
+        });
+    }
+
+    public void recordDeletedAfterCommit(Long userId) {
+        afterCommit(() -> refresh(userId));
+    }
+
+    public void refresh(Long userId) {
+        ensureLoaded();
+        storyRepository.findLatestActiveExpiry(userId, LocalDateTime.now()).ifPresentOrElse(
+                expiry -> latestExpiry.put(userId, expiry),
+                () -> latestExpiry.remove(userId));
+    }
+
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        latestExpiry.values().removeIf(expiry -> !expiry.isAfter(now));
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            jdbcTemplate.query("SELECT user_id, MAX(expires_at) FROM stories WHERE expires_at > ? GROUP BY user_id",
+                    rs -> {
+                        latestExpiry.put(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime());
+                    },
+                    LocalDateTime.now());
+            loaded = true;
+            logger.info("Loaded active story presence for {} users", latestExpiry.size());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.skillshare.platform.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Which active stories each viewer has seen, as one {@link BitSet} per viewer.
+ *
+ * Story ids only grow, and active stories are the newest 24 hours of them, so bit
+ * {@code storyId - base} is enough, with {@code base} being the smallest active story id.
+ * When expiry moves the smallest id forward by at least {@link #REBASE_STEP}, every bitset is
+ * shifted down by the same amount. Expired stories then drop out of the index without being
+ * tracked one by one.
+ *
+ * Marks are made when a view is recorded, before the view reaches {@code story_viewers}, and the
+ * index is seeded from that table for active stories on first use.
+ */
+@Component
+public class StorySeenIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorySeenIndex.class);
+
+    // Rebase in whole words so shifting is cheap and infrequent
+    private static final long REBASE_STEP = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, BitSet> seenByViewer = new ConcurrentHashMap<>();
+    // Guards base: marks and reads share it, rebasing takes it exclusively
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long base;
+    private volatile boolean loaded;
+
+    public StorySeenIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    public void markSeen(Long viewerId, Long storyId) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            if (storyId < base) {
+                return;
+            }
+            BitSet seen = seenByViewer.computeIfAbsent(viewerId, id -> new BitSet());
+            synchronized (seen) {
+                seen.set((int) (storyId - base));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the subset of {@code storyIds} the viewer has seen.
+     */
+    public Set<Long> seenAmong(Long viewerId, Collection<Long> storyIds) {
+        Set<Long> result = new HashSet<>();
+        if (viewerId == null) {
+            return result;
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            BitSet seen = seenByViewer.get(viewerId);
+            if (seen == null) {
+                return result;
+            }
+            synchronized (seen) {
+                for (Long storyId : storyIds) {
+                    if (storyId >= base && seen.get((int) (storyId - base))) {
+                        result.add(storyId);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops expired stories from every bitset once the smallest active story id has moved far
+     * enough. Called after expired stories are deleted.
+     */
+    public void rebase() {
+        ensureLoaded();
+        long newBase = activeBase();
+        lock.writeLock().lock();
+        try {
+            long shift = newBase - base;
+            if (shift < REBASE_STEP) {
+                return;
+            }
+            int offset = (int) shift;
+            seenByViewer.replaceAll((viewerId, seen) -> {
+                synchronized (seen) {
+                    return seen.get(offset, Math.max(seen.length(), offset));
+                }
+            });
+            seenByViewer.values().removeIf(BitSet::isEmpty);
+            base = newBase;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long activeBase() {
+        Long minActive = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM stories WHERE expires_at > ?", Long.class, LocalDateTime.now());
+        if (minActive != null) {
+            return minActive;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM stories", Long.class);
+        return maxId != null ? maxId + 1 : 0;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                base = activeBase();
+                jdbcTemplate.query("SELECT sv.user_id, sv.story_id FROM story_viewers sv " +
+                        "JOIN stories s ON s.id = sv.story_id WHERE s.expires_at > ?", rs -> {
+                    long storyId = rs.getLong(2);
+                    if (storyId >= base) {
+                        seenByViewer.computeIfAbsent(rs.getLong(1), id -> new BitSet()).set((int) (storyId - base));
+                    }
+                }, LocalDateTime.now());
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Loaded seen stories for {} viewers", seenByViewer.size());
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.skillshare.platform.demo.service;
 
+import com.skillshare.platform.demo.dto.AuthorSummary;
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.StoryDTO;
+import com.skillshare.platform.demo.dto.StoryTrayDTO;
 import com.skillshare.platform.demo.dto.request.StoryRequest;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.MediaType;
 import com.skillshare.platform.demo.model.Story;
@@ -12,8 +16,9 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -22,6 +27,8 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,20 +40,47 @@ public class StoryService {
     private final StoryRepository storyRepository;
     private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
+    private final AuthorSummaryService authorSummaryService;
+    private final StoryPresenceIndex storyPresenceIndex;
+    private final StoryExpiryScheduler storyExpiryScheduler;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final StoryViewLog storyViewLog;
+    private final StorySeenIndex storySeenIndex;
+    private final StoryTrayService storyTrayService;
 
     public Page<StoryDTO> getAllStories(Pageable pageable, Long currentUserId) {
         Page<Story> stories = storyRepository.findByExpiresAtAfter(LocalDateTime.now(), pageable);
-        return stories.map(story -> mapStoryToDTO(story, currentUserId));
+        return new PageImpl<>(mapStoriesToDTOs(stories.getContent(), currentUserId),
+                stories.getPageable(), stories.getTotalElements());
+    }
+
+    public CursorPage<StoryDTO> getAllStoriesBefore(Cursor cursor, int size, Long currentUserId) {
+        List<Story> stories = storyRepository.findActiveBefore(
+                LocalDateTime.now(), cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, size + 1));
+        return CursorPage.fromRows(stories, size,
+                story -> new Cursor(story.getCreatedAt(), story.getId()),
+                page -> mapStoriesToDTOs(page, currentUserId));
     }
 
     public List<StoryDTO> getUserStories(Long userId, Long currentUserId) {
         List<Story> stories = storyRepository.findByUserIdAndExpiresAtAfterOrderByCreatedAtDesc(userId, LocalDateTime.now());
-        return stories.stream().map(story -> mapStoryToDTO(story, currentUserId)).collect(Collectors.toList());
+        return mapStoriesToDTOs(stories, currentUserId);
+    }
+
+    public StoryDTO getStoryById(Long storyId, Long currentUserId) {
+        Story story = storyRepository.findById(storyId)
+                .filter(found -> !found.isExpired())
+                .orElseThrow(() -> new ResourceNotFoundException("Story not found with id: " + storyId));
+        return mapStoriesToDTOs(List.of(story), currentUserId).get(0);
+    }
+
+    public List<StoryTrayDTO> getStoryTray(Long userId) {
+        return storyTrayService.getTray(userId);
     }
 
     public List<StoryDTO> getFeedStories(Long userId) {
         List<Story> stories = storyRepository.findStoriesFromFollowedUsers(userId, LocalDateTime.now());
-        return stories.stream().map(story -> mapStoryToDTO(story, userId)).collect(Collectors.toList());
+        return mapStoriesToDTOs(stories, userId);
     }
 
     @Transactional
@@ -54,9 +88,11 @@ public class StoryService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
+        LocalDateTime createdAt = LocalDateTime.now();
+        LocalDateTime expiresAt = createdAt.plusHours(24);
         String mediaUrl;
         try {
-            mediaUrl = fileStorageService.storeFile(mediaFile);
+            mediaUrl = fileStorageService.storeEphemeralFile(mediaFile, expiresAt);
         } catch (IOException e) {
             throw new RuntimeException("Could not store media file", e);
         }
@@ -69,28 +105,23 @@ public class StoryService {
                 .mediaUrl(mediaUrl)
                 .mediaType(mediaType)
                 .viewers(new HashSet<>())
-                .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusHours(24))
+                .createdAt(createdAt)
+                .expiresAt(expiresAt)
                 .build();
 
-        return StoryDTO.fromStory(storyRepository.save(story));
+        Story savedStory = storyRepository.save(story);
+        storyPresenceIndex.recordCreatedAfterCommit(userId, savedStory.getExpiresAt());
+        storyExpiryScheduler.scheduleAfterCommit(savedStory.getId(), savedStory.getExpiresAt());
+        storyTrayService.invalidateFollowersAfterCommit(userId);
+        return StoryDTO.fromStory(savedStory);
     }
 
-    @Transactional
     public void viewStory(Long storyId, Long userId) {
-        Story story = storyRepository.findById(storyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Story not found with id: " + storyId));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-
-        if (story.getViewers() == null) {
-            story.setViewers(new HashSet<>());
-        }
-
-        if (!story.getViewers().contains(user)) {
-            story.getViewers().add(user);
-            storyRepository.save(story);
+        if (!storyRepository.existsById(storyId)) {
+            throw new ResourceNotFoundException("Story not found with id: " + storyId);
         }
+        storyViewLog.record(storyId, userId);
+        storySeenIndex.markSeen(userId, storyId);
     }
 
     @Transactional
@@ -102,27 +133,11 @@ public class StoryService {
             throw new IllegalArgumentException("You are not authorized to delete this story");
         }
 
-        try {
-            fileStorageService.deleteFile(story.getMediaUrl());
-        } catch (IOException e) {
-            logger.error("Error deleting file: {}", e.getMessage());
-        }
-
         storyRepository.delete(story);
-    }
-
-    @Scheduled(fixedRate = 3600000)
-    @Transactional
-    public void cleanupExpiredStories() {
-        List<Story> expiredStories = storyRepository.findByExpiresAtBefore(LocalDateTime.now());
-        for (Story story : expiredStories) {
-            try {
-                fileStorageService.deleteFile(story.getMediaUrl());
-            } catch (IOException e) {
-                logger.error("Error deleting file during cleanup: {}", e.getMessage());
-            }
-        }
-        storyRepository.deleteAll(expiredStories);
+        storyViewLog.forget(List.of(storyId));
+        storyTrayService.invalidateFollowersAfterCommit(userId);
+        mediaDeletionQueue.deleteAfterCommit(story.getMediaUrl());
+        storyPresenceIndex.recordDeletedAfterCommit(userId);
     }
 
     private MediaType determineMediaType(String contentType) {
@@ -133,10 +148,19 @@ public class StoryService {
         return MediaType.IMAGE;
     }
 
-    private StoryDTO mapStoryToDTO(Story story, Long currentUserId) {
-        boolean viewed = story.getViewers() != null &&
-                         currentUserId != null &&
-                         story.getViewers().stream().anyMatch(u -> u.getId().equals(currentUserId));
-        return StoryDTO.fromStory(story, viewed);
+    private List<StoryDTO> mapStoriesToDTOs(List<Story> stories, Long currentUserId) {
+        Map<Long, AuthorSummary> authors = authorSummaryService.getSummaries(
+                stories.stream().map(story -> story.getUser().getId()).collect(Collectors.toSet()));
+        List<Long> storyIds = stories.stream().map(Story::getId).collect(Collectors.toList());
+        Map<Long, Integer> viewsCounts = storyViewLog.viewsCounts(storyIds);
+        Set<Long> seen = storySeenIndex.seenAmong(currentUserId, storyIds);
+        return stories.stream()
+                .map(story -> {
+                    StoryDTO dto = StoryDTO.fromStory(story, authors.get(story.getUser().getId()));
+                    dto.setViewsCount(viewsCounts.getOrDefault(story.getId(), 0));
+                    dto.setViewed(seen.contains(story.getId()));
+                    return dto;
+                })
+                .collect(Collectors.toList());
     }
 }
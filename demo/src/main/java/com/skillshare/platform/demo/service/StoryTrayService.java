@@ -0,0 +1,193 @@
+package com.skillshare.platform.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.dto.AuthorSummary;
+import com.skillshare.platform.demo.dto.StoryRef;
+import com.skillshare.platform.demo.dto.StoryTrayDTO;
+import com.skillshare.platform.demo.repository.StoryRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Story tray: the active stories of followed users, one entry per author, authors with
+ * unseen stories first and then most recent first.
+ *
+ * The layout (which authors, which story ids) is cached per user in an LRU cache until its
+ * earliest story expires, and for a day at most. Instead of evicting trays, a story change
+ * stamps its author and a follow change stamps the follower with the time of the change; a
+ * cached tray is stale once its user or any author they follow has a stamp newer than the
+ * start of its build. An author with a million followers therefore costs one map write per
+ * story, and a change that lands while a tray is being built is never hidden by the put that
+ * follows. Seen state changes on every view, so it is not cached; it comes from
+ * {@link StorySeenIndex} when the tray is served.
+ */
+@Service
+public class StoryTrayService {
+
+    // Upper bound on a tray's life, so change stamps older than this can be forgotten
+    private static final long MAX_TRAY_AGE_NANOS = Duration.ofHours(24).toNanos();
+
+    private final StoryRepository storyRepository;
+    private final FollowGraph followGraph;
+    private final StoryPresenceIndex storyPresenceIndex;
+    private final StorySeenIndex storySeenIndex;
+    private final AuthorSummaryService authorSummaryService;
+    private final LruCache<Long, Tray> trays;
+    // System.nanoTime() of the latest story change per author, and follow change per follower
+    private final Map<Long, Long> authorChanges = new ConcurrentHashMap<>();
+    private final Map<Long, Long> followChanges = new ConcurrentHashMap<>();
+
+    public StoryTrayService(StoryRepository storyRepository,
+                            FollowGraph followGraph,
+                            StoryPresenceIndex storyPresenceIndex,
+                            StorySeenIndex storySeenIndex,
+                            AuthorSummaryService authorSummaryService,
+                            @Value("${stories.tray.cache-size:10000}") int cacheSize) {
+        this.storyRepository = storyRepository;
+        this.followGraph = followGraph;
+        this.storyPresenceIndex = storyPresenceIndex;
+        this.storySeenIndex = storySeenIndex;
+        this.authorSummaryService = authorSummaryService;
+        this.trays = new LruCache<>(cacheSize);
+    }
+
+    public List<StoryTrayDTO> getTray(Long userId) {
+        Tray tray = trays.get(userId);
+        if (tray == null || isStale(userId, tray)) {
+            tray = buildTray(userId);
+            trays.put(userId, tray);
+        }
+
+        List<Long> allStoryIds = tray.groups.stream()
+                .flatMap(group -> Arrays.stream(group.storyIds).boxed())
+                .collect(Collectors.toList());
+        Set<Long> seen = storySeenIndex.seenAmong(userId, allStoryIds);
+        Map<Long, AuthorSummary> authors = authorSummaryService.getSummaries(
+                tray.groups.stream().map(group -> group.authorId).collect(Collectors.toList()));
+
+        List<StoryTrayDTO> result = new ArrayList<>(tray.groups.size());
+        for (AuthorGroup group : tray.groups) {
+            Long firstUnseen = Arrays.stream(group.storyIds)
+                    .filter(id -> !seen.contains(id))
+                    .boxed()
+                    .findFirst()
+                    .orElse(null);
+            result.add(StoryTrayDTO.builder()
+                    .user(authors.get(group.authorId))
+                    .storyIds(Arrays.stream(group.storyIds).boxed().collect(Collectors.toList()))
+                    .hasUnseen(firstUnseen != null)
+                    .firstUnseenStoryId(firstUnseen)
+                    .latestStoryAt(group.latestStoryAt)
+                    .build());
+        }
+        result.sort(Comparator.comparing((StoryTrayDTO entry) -> !entry.isHasUnseen())
+                .thenComparing(StoryTrayDTO::getLatestStoryAt, Comparator.reverseOrder()));
+        return result;
+    }
+
+    /**
+     * Marks the trays of everyone following {@code authorId} stale, once the story change commits.
+     */
+    public void invalidateFollowersAfterCommit(Long authorId) {
+        afterCommit(() -> authorChanges.put(authorId, System.nanoTime()));
+    }
+
+    /**
+     * Marks the user's own tray stale, once their follow change commits.
+     */
+    public void invalidateAfterCommit(Long userId) {
+        afterCommit(() -> followChanges.put(userId, System.nanoTime()));
+    }
+
+    @Scheduled(fixedDelayString = "${stories.tray.change-prune-interval-ms:3600000}")
+    public void pruneChanges() {
+        // Every tray built before these changes has expired by age already
+        long cutoff = System.nanoTime() - MAX_TRAY_AGE_NANOS;
+        authorChanges.values().removeIf(changedAt -> changedAt - cutoff < 0);
+        followChanges.values().removeIf(changedAt -> changedAt - cutoff < 0);
+    }
+
+    private boolean isStale(Long userId, Tray tray) {
+        if (!tray.validUntil.isAfter(LocalDateTime.now())
+                || System.nanoTime() - tray.builtAt >= MAX_TRAY_AGE_NANOS
+                || changedSince(followChanges.get(userId), tray.builtAt)) {
+            return true;
+        }
+        if (authorChanges.isEmpty()) {
+            return false;
+        }
+        for (long authorId : followGraph.following(userId)) {
+            if (changedSince(authorChanges.get(authorId), tray.builtAt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A change at the very instant the build started counts, since it may not have been seen
+    private static boolean changedSince(Long changedAt, long builtAt) {
+        return changedAt != null && changedAt - builtAt >= 0;
+    }
+
+    private Tray buildTray(Long userId) {
+        // Taken before reading anything, so changes made during the build mark the tray stale
+        long builtAt = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> followed = Arrays.stream(followGraph.following(userId)).boxed().collect(Collectors.toList());
+        Set<Long> authorsWithStories = storyPresenceIndex.withActiveStories(followed);
+        if (authorsWithStories.isEmpty()) {
+            return new Tray(List.of(), LocalDateTime.MAX, builtAt);
+        }
+
+        Map<Long, List<StoryRef>> byAuthor = new LinkedHashMap<>();
+        LocalDateTime validUntil = LocalDateTime.MAX;
+        for (StoryRef story : storyRepository.findActiveStoryRefsByUserIds(authorsWithStories, now)) {
+            byAuthor.computeIfAbsent(story.getUserId(), id -> new ArrayList<>()).add(story);
+            if (story.getExpiresAt().isBefore(validUntil)) {
+                validUntil = story.getExpiresAt();
+            }
+        }
+
+        List<AuthorGroup> groups = new ArrayList<>(byAuthor.size());
+        byAuthor.forEach((authorId, stories) -> groups.add(new AuthorGroup(
+                authorId,
+                stories.stream().mapToLong(StoryRef::getStoryId).toArray(),
+                stories.get(stories.size() - 1).getCreatedAt())));
+        return new Tray(groups, validUntil, builtAt);
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private record Tray(List<AuthorGroup> groups, LocalDateTime validUntil, long builtAt) {
+    }
+
+    // Story ids oldest first
+    private record AuthorGroup(Long authorId, long[] storyIds, LocalDateTime latestStoryAt) {
+    }
+}
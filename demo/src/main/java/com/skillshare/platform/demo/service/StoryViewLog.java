@@ -0,0 +1,144 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.skillshare.platform.demo.repository.StoryRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only log of story views.
+ *
+ * A view is pushed onto a lock-free queue and added to the story's {@link HyperLogLog}
+ * sketch. The queue is written to {@code story_viewers} every
+ * {@code stories.views.flush-interval-ms} as one {@code INSERT IGNORE} batch, so repeat
+ * views and views of stories deleted in the meantime are dropped by the database.
+ *
+ * Displayed view counts are the sketch estimates. A sketch is filled from {@code story_viewers}
+ * the first time its count is read after a restart. Merging is idempotent, so views recorded
+ * before that load are not counted twice.
+ */
+@Component
+public class StoryViewLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoryViewLog.class);
+
+    private static final String INSERT_SQL = "INSERT IGNORE INTO story_viewers (story_id, user_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StoryRepository storyRepository;
+    private final Queue<long[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    private final Map<Long, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    private final Set<Long> loadedSketches = ConcurrentHashMap.newKeySet();
+    private final Counter flushedViews;
+
+    @Value("${stories.views.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    public StoryViewLog(JdbcTemplate jdbcTemplate, StoryRepository storyRepository, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storyRepository = storyRepository;
+        this.flushedViews = Counter.builder("stories.views.flushed")
+                .description("Story views written to story_viewers")
+                .register(meterRegistry);
+        Gauge.builder("stories.views.pending", pendingSize, AtomicInteger::get)
+                .description("Story views waiting to be written")
+                .register(meterRegistry);
+    }
+
+    public void record(Long storyId, Long userId) {
+        pending.add(new long[]{storyId, userId});
+        pendingSize.incrementAndGet();
+        sketches.computeIfAbsent(storyId, id -> new HyperLogLog()).add(userId);
+    }
+
+    /**
+     * Estimated distinct viewers per story. Sketches not seen since startup are loaded with
+     * one query for the whole batch.
+     */
+    public Map<Long, Integer> viewsCounts(Collection<Long> storyIds) {
+        List<Long> unloaded = storyIds.stream()
+                .filter(id -> !loadedSketches.contains(id))
+                .distinct()
+                .collect(Collectors.toList());
+        if (!unloaded.isEmpty()) {
+            for (Object[] row : storyRepository.findViewerPairsByStoryIds(unloaded)) {
+                Long storyId = ((Number) row[0]).longValue();
+                sketches.computeIfAbsent(storyId, id -> new HyperLogLog()).add(((Number) row[1]).longValue());
+            }
+            loadedSketches.addAll(unloaded);
+        }
+
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Long storyId : storyIds) {
+            HyperLogLog sketch = sketches.get(storyId);
+            counts.put(storyId, sketch != null ? (int) sketch.estimate() : 0);
+        }
+        return counts;
+    }
+
+    public void forget(Collection<Long> storyIds) {
+        storyIds.forEach(id -> {
+            sketches.remove(id);
+            loadedSketches.remove(id);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${stories.views.flush-interval-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        // Only what was queued when the flush started, so requeued views wait for the next one
+        int remaining = pendingSize.get();
+        List<Object[]> batch = new ArrayList<>(flushBatchSize);
+        long[] view;
+        while (remaining-- > 0 && (view = pending.poll()) != null) {
+            pendingSize.decrementAndGet();
+            batch.add(new Object[]{view[0], view[1]});
+            if (batch.size() == flushBatchSize) {
+                if (!write(batch)) {
+                    return;
+                }
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private boolean write(List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            flushedViews.increment(batch.size());
+            return true;
+        } catch (RuntimeException e) {
+            // Views are idempotent, so putting them back is safe
+            batch.forEach(row -> {
+                pending.add(new long[]{(Long) row[0], (Long) row[1]});
+                pendingSize.incrementAndGet();
+            });
+            logger.error("Failed to write {} story views: {}", batch.size(), e.getMessage(), e);
+            return false;
+        }
+    }
+}
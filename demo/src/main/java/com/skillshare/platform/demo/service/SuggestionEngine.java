@@ -0,0 +1,228 @@
+package com.skillshare.platform.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+
+/**
+ * Precomputed "people you may know" lists.
+ *
+ * Candidates are second-degree connections from {@link FollowGraph}: accounts followed by the
+ * accounts a user follows, excluding ones they already follow. Each candidate scores one
+ * point per mutual connection plus {@code suggestions.topic-weight} per learning-plan topic
+ * the two users share, and the best {@code suggestions.per-user} are kept per user.
+ *
+ * All users are scored in a fork/join pass at startup and nightly. A follow or unfollow marks
+ * the follower and, up to {@code suggestions.max-dirty-fan-in}, their followers as dirty, and
+ * only those are rescored on the next refresh. Serving a user's suggestions is one map lookup.
+ */
+@Component
+public class SuggestionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionEngine.class);
+
+    // Users per fork/join leaf task
+    private static final int BATCH_SIZE = 256;
+
+    private static final long[] EMPTY = new long[0];
+
+    private final FollowGraph followGraph;
+    private final JdbcTemplate jdbcTemplate;
+    private final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private final Map<Long, long[]> suggestions = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private volatile Map<Long, Set<String>> topicsByUser = Map.of();
+
+    @Value("${suggestions.per-user:20}")
+    private int perUser;
+
+    @Value("${suggestions.topic-weight:0.5}")
+    private double topicWeight;
+
+    @Value("${suggestions.max-dirty-fan-in:10000}")
+    private int maxDirtyFanIn;
+
+    public SuggestionEngine(FollowGraph followGraph, JdbcTemplate jdbcTemplate) {
+        this.followGraph = followGraph;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Up to {@code limit} suggested user ids, best first. Empty until the user has been scored
+     * or when they follow nobody yet.
+     */
+    public List<Long> suggestionsFor(Long userId, int limit) {
+        long[] ids = suggestions.getOrDefault(userId, EMPTY);
+        return Arrays.stream(ids, 0, Math.min(limit, ids.length)).boxed().collect(Collectors.toList());
+    }
+
+    public void recordFollowChangeAfterCommit(Long followerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markDirty(followerId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markDirty(followerId);
+            }
+        });
+    }
+
+    private void markDirty(Long followerId) {
+        dirty.add(followerId);
+        // Whoever follows the follower now sees a different second degree
+        long[] fanIn = followGraph.followers(followerId);
+        if (fanIn.length <= maxDirtyFanIn) {
+            for (long id : fanIn) {
+                dirty.add(id);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${suggestions.rebuild-cron:0 0 4 * * *}")
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        topicsByUser = loadTopics();
+        long[] userIds = jdbcTemplate.queryForList("SELECT id FROM users", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        dirty.clear();
+        pool.invoke(new ScoreTask(userIds, 0, userIds.length));
+        logger.info("Computed suggestions for {} users in {} ms", userIds.length, System.currentTimeMillis() - start);
+    }
+
+    @Scheduled(fixedDelayString = "${suggestions.refresh-interval-ms:60000}")
+    public void refreshDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        long[] userIds = dirty.stream().mapToLong(Long::longValue).toArray();
+        for (long id : userIds) {
+            dirty.remove(id);
+        }
+        pool.invoke(new ScoreTask(userIds, 0, userIds.length));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private long[] score(long userId) {
+        long[] followed = followGraph.following(userId);
+        if (followed.length == 0) {
+            return EMPTY;
+        }
+
+        Map<Long, Integer> mutuals = new HashMap<>();
+        for (long friendId : followed) {
+            for (long candidateId : followGraph.following(friendId)) {
+                if (candidateId != userId && Arrays.binarySearch(followed, candidateId) < 0) {
+                    mutuals.merge(candidateId, 1, Integer::sum);
+                }
+            }
+        }
+        if (mutuals.isEmpty()) {
+            return EMPTY;
+        }
+
+        Set<String> ownTopics = topicsByUser.getOrDefault(userId, Set.of());
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+        mutuals.forEach((candidateId, mutual) -> {
+            double score = mutual + topicWeight * sharedTopics(ownTopics, topicsByUser.getOrDefault(candidateId, Set.of()));
+            if (best.size() < perUser) {
+                best.add(new Candidate(candidateId, score));
+            } else if (score > best.peek().score()) {
+                best.poll();
+                best.add(new Candidate(candidateId, score));
+            }
+        });
+
+        long[] ranked = new long[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = best.poll().userId();
+        }
+        return ranked;
+    }
+
+    private static int sharedTopics(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int shared = 0;
+        for (String topic : smaller) {
+            if (larger.contains(topic)) {
+                shared++;
+            }
+        }
+        return shared;
+    }
+
+    private Map<Long, Set<String>> loadTopics() {
+        Map<Long, Set<String>> topics = new HashMap<>();
+        jdbcTemplate.query("SELECT lp.user_id, LOWER(TRIM(t.name)) FROM learning_plan_topics t " +
+                "JOIN learning_plans lp ON lp.id = t.learning_plan_id", rs -> {
+            topics.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(rs.getString(2));
+        });
+        topics.replaceAll((id, names) -> Collections.unmodifiableSet(names));
+        return topics;
+    }
+
+    private record Candidate(long userId, double score) {
+    }
+
+    private class ScoreTask extends RecursiveAction {
+        private final long[] userIds;
+        private final int from;
+        private final int to;
+
+        ScoreTask(long[] userIds, int from, int to) {
+            this.userIds = userIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    long[] ranked = score(userIds[i]);
+                    if (ranked.length == 0) {
+                        suggestions.remove(userIds[i]);
+                    } else {
+                        suggestions.put(userIds[i], ranked);
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ScoreTask(userIds, from, mid), new ScoreTask(userIds, mid, to));
+        }
+    }
+}
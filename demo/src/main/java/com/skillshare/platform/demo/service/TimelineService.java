@@ -0,0 +1,315 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.skillshare.platform.demo.dto.Cursor;
+import com.skillshare.platform.demo.dto.FeedEntry;
+import com.skillshare.platform.demo.model.Post;
+import com.skillshare.platform.demo.repository.PostRepository;
+import com.skillshare.platform.demo.repository.TimelineEntryRepository;
+import com.skillshare.platform.demo.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Hybrid push/pull home timelines.
+ *
+ * Posts from regular authors are fanned out on write into each follower's materialized
+ * timeline. Authors at or above {@code feed.fanout.pull-threshold} followers are "pulled"
+ * instead: their posts only go into {@link AuthorRecentPostsCache} and are merged into
+ * the reader's timeline at read time. Reads that go past the cached posts of a pulled
+ * author fall back to that author's posts in the database.
+ *
+ * An author drops back to push once their followers fall below
+ * {@code feed.fanout.push-threshold} at their next post; their latest
+ * {@code feed.timeline.backfill-size} posts are then fanned out, so older posts from the
+ * pull period only remain reachable through the author's profile.
+ */
+@Service
+public class TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final AuthorRecentPostsCache authorRecentPostsCache;
+    private final FollowGraph followGraph;
+
+    private final Counter fanOutWrites;
+    private final Counter fanOutWritesSaved;
+    private final Counter pulledPosts;
+    private final Counter mergedReads;
+
+    // How many of an author's most recent posts are copied into a new follower's timeline
+    @Value("${feed.timeline.backfill-size:200}")
+    private int backfillSize;
+
+    @Value("${feed.fanout.pull-threshold:10000}")
+    private long pullThreshold;
+
+    // Below pullThreshold, so authors hovering around it do not flip on every post
+    @Value("${feed.fanout.push-threshold:5000}")
+    private long pushThreshold;
+
+    @Value("${feed.pull.recent-posts-per-author:100}")
+    private int recentPostsPerAuthor;
+
+    public TimelineService(TimelineEntryRepository timelineEntryRepository,
+                           PostRepository postRepository,
+                           UserRepository userRepository,
+                           AuthorRecentPostsCache authorRecentPostsCache,
+                           FollowGraph followGraph,
+                           MeterRegistry meterRegistry) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.authorRecentPostsCache = authorRecentPostsCache;
+        this.followGraph = followGraph;
+        this.fanOutWrites = Counter.builder("feed.fanout.writes")
+                .description("Timeline rows written by fan-out on write")
+                .register(meterRegistry);
+        this.fanOutWritesSaved = Counter.builder("feed.fanout.writes.saved")
+                .description("Timeline rows not written because the author is pulled at read time")
+                .register(meterRegistry);
+        this.pulledPosts = Counter.builder("feed.pull.posts")
+                .description("Posts routed to the pull path instead of being fanned out")
+                .register(meterRegistry);
+        this.mergedReads = Counter.builder("feed.pull.merged.reads")
+                .description("Feed reads that merged pulled authors into the materialized timeline")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Offset page of the home timeline. Merged pages (readers following a pulled author) are
+     * not counted: their total only tells whether a next page exists, one past the entries
+     * seen so far, like a {@link org.springframework.data.domain.Slice}.
+     */
+    public Page<Post> getTimeline(Long userId, Pageable pageable) {
+        List<Long> pulledAuthorIds = followedPulledAuthors(userId);
+        if (pulledAuthorIds.isEmpty()) {
+            return timelineEntryRepository.findTimelinePosts(userId, pageable);
+        }
+        mergedReads.increment();
+
+        int offset = (int) pageable.getOffset();
+        // One extra entry tells whether there is a next page
+        int needed = offset + pageable.getPageSize() + 1;
+        List<List<FeedEntry>> sources = new ArrayList<>();
+        sources.add(timelineEntryRepository.findTimelineEntries(userId, PageRequest.of(0, needed)));
+        for (Long authorId : pulledAuthorIds) {
+            sources.add(pulledEntries(authorId, needed));
+        }
+
+        List<FeedEntry> merged = mergeNewestFirst(sources, needed);
+        boolean hasNext = merged.size() == needed;
+        List<FeedEntry> pageEntries = offset >= merged.size()
+                ? List.of()
+                : merged.subList(offset, Math.min(merged.size(), needed - 1));
+        long total = offset + pageEntries.size() + (hasNext ? 1 : 0);
+        return new PageImpl<>(loadInOrder(pageEntries), pageable, total);
+    }
+
+    /**
+     * Keyset variant of {@link #getTimeline}: returns up to {@code limit} posts strictly
+     * older than {@code cursor}, without a COUNT query.
+     */
+    public List<Post> getTimelineBefore(Long userId, Cursor cursor, int limit) {
+        List<FeedEntry> materialized = timelineEntryRepository.findTimelineEntriesBefore(
+                userId, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, limit));
+        List<Long> pulledAuthorIds = followedPulledAuthors(userId);
+        if (pulledAuthorIds.isEmpty()) {
+            return loadInOrder(materialized);
+        }
+        mergedReads.increment();
+
+        FeedEntry position = new FeedEntry(cursor.getId(), cursor.getCreatedAt());
+        List<List<FeedEntry>> sources = new ArrayList<>();
+        sources.add(materialized);
+        for (Long authorId : pulledAuthorIds) {
+            List<FeedEntry> older = authorRecentPostsCache.recent(authorId).stream()
+                    .filter(entry -> FeedEntry.NEWEST_FIRST.compare(entry, position) > 0)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+            if (older.size() < limit && authorRecentPostsCache.isTruncated(authorId)) {
+                older = postRepository.findFeedEntriesByUserIdBefore(
+                        authorId, cursor.getCreatedAt(), cursor.getId(), PageRequest.of(0, limit));
+            }
+            sources.add(older);
+        }
+        return loadInOrder(mergeNewestFirst(sources, limit));
+    }
+
+    @Transactional
+    public void fanOutPost(Post post) {
+        Long authorId = post.getUser().getId();
+        long followers = userRepository.countFollowers(authorId);
+        boolean pulled = authorRecentPostsCache.isPulled(authorId);
+
+        if (pulled && followers < pushThreshold) {
+            // The post is already saved, so this covers it as well
+            int written = timelineEntryRepository.fanOutRecentPosts(authorId, backfillSize);
+            authorRecentPostsCache.unmarkPulled(authorId);
+            fanOutWrites.increment(written);
+            logger.info("Author {} is back on fan-out on write with {} followers", authorId, followers);
+            return;
+        }
+
+        if (pulled || followers >= pullThreshold) {
+            if (!pulled) {
+                // Author just crossed the threshold: seed with their recent history so the
+                // merge covers posts that were fanned out before the switch as well
+                authorRecentPostsCache.markPulled(authorId, recentEntries(authorId));
+            }
+            authorRecentPostsCache.add(authorId, new FeedEntry(post.getId(), post.getCreatedAt()));
+            pulledPosts.increment();
+            fanOutWritesSaved.increment(followers);
+            logger.debug("Post {} by pulled author {} skipped fan-out to {} followers", post.getId(), authorId, followers);
+            return;
+        }
+
+        int written = timelineEntryRepository.fanOutToFollowers(authorId, post.getId(), post.getCreatedAt());
+        fanOutWrites.increment(written);
+        logger.debug("Fanned out post {} to {} timelines", post.getId(), written);
+    }
+
+    @Transactional
+    public void onFollow(Long followerId, Long followedId) {
+        if (authorRecentPostsCache.isPulled(followedId)) {
+            // Pulled authors are merged at read time, nothing to copy
+            return;
+        }
+        int written = timelineEntryRepository.backfillFromAuthor(followerId, followedId, backfillSize);
+        fanOutWrites.increment(written);
+        logger.debug("Backfilled {} posts from user {} into timeline of user {}", written, followedId, followerId);
+    }
+
+    @Transactional
+    public void onUnfollow(Long followerId, Long followedId) {
+        int removed = timelineEntryRepository.pruneAuthor(followerId, followedId);
+        logger.debug("Pruned {} posts from user {} out of timeline of user {}", removed, followedId, followerId);
+    }
+
+    @Transactional
+    public void removePost(Post post) {
+        timelineEntryRepository.deleteByPostId(post.getId());
+        authorRecentPostsCache.remove(post.getUser().getId(), post.getId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void seedTimelines() {
+        // Authors between the two thresholds may have been pulled before the restart; keep
+        // them pulled, since their posts from that period were never fanned out
+        List<Long> pulledAuthorIds = userRepository.findUserIdsWithFollowersAtLeast(pushThreshold);
+        pulledAuthorIds.forEach(authorId -> authorRecentPostsCache.markPulled(authorId, recentEntries(authorId)));
+        logger.info("Serving {} authors from the pull path", pulledAuthorIds.size());
+
+        // Existing installations start with an empty table; materialize it once from the follow graph
+        if (timelineEntryRepository.count() > 0 || postRepository.count() == 0) {
+            return;
+        }
+        logger.info("Timeline table is empty, building timelines from existing posts");
+        int written = timelineEntryRepository.rebuildAll();
+        logger.info("Timeline build completed with {} entries", written);
+    }
+
+    /**
+     * K-way merge of newest-first sources, dropping duplicate post ids (a post can be both
+     * materialized and pulled around the time its author crossed the threshold).
+     */
+    static List<FeedEntry> mergeNewestFirst(List<List<FeedEntry>> sources, int limit) {
+        PriorityQueue<SourceCursor> heads = new PriorityQueue<>(
+                (a, b) -> FeedEntry.NEWEST_FIRST.compare(a.current(), b.current()));
+        for (List<FeedEntry> source : sources) {
+            if (!source.isEmpty()) {
+                heads.add(new SourceCursor(source));
+            }
+        }
+
+        List<FeedEntry> merged = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            SourceCursor head = heads.poll();
+            FeedEntry entry = head.current();
+            if (seen.add(entry.getPostId())) {
+                merged.add(entry);
+            }
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private List<Long> followedPulledAuthors(Long userId) {
+        Set<Long> pulled = authorRecentPostsCache.pulledAuthors();
+        if (pulled.isEmpty()) {
+            return List.of();
+        }
+        return new ArrayList<>(followGraph.followedAmong(userId, pulled));
+    }
+
+    /**
+     * The newest {@code needed} posts of a pulled author: from the cache when it holds them,
+     * from the database when the read goes past the posts the cache has dropped.
+     */
+    private List<FeedEntry> pulledEntries(Long authorId, int needed) {
+        List<FeedEntry> recent = authorRecentPostsCache.recent(authorId);
+        if (recent.size() >= needed || !authorRecentPostsCache.isTruncated(authorId)) {
+            return recent;
+        }
+        return postRepository.findRecentFeedEntriesByUserId(authorId, PageRequest.of(0, needed));
+    }
+
+    private List<FeedEntry> recentEntries(Long authorId) {
+        return postRepository.findRecentFeedEntriesByUserId(authorId, PageRequest.of(0, recentPostsPerAuthor));
+    }
+
+    private List<Post> loadInOrder(List<FeedEntry> entries) {
+        List<Long> ids = entries.stream().map(FeedEntry::getPostId).collect(Collectors.toList());
+        Map<Long, Post> postsById = postRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+        return ids.stream()
+                .map(postsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static final class SourceCursor {
+        private final List<FeedEntry> entries;
+        private int position;
+
+        SourceCursor(List<FeedEntry> entries) {
+            this.entries = entries;
+        }
+
+        FeedEntry current() {
+            return entries.get(position);
+        }
+
+        boolean advance() {
+            return ++position < entries.size();
+        }
+    }
+}
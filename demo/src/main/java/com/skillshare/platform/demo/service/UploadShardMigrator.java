@@ -0,0 +1,184 @@
+package com.skillshare.platform.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Moves uploads stored flat in the upload directory into the two-level shard layout while
+ * the application keeps serving.
+ *
+ * Files are moved in batches of {@code file.storage.shard-migration.batch-size}, in parallel
+ * on {@code file.storage.shard-migration.threads} threads. The URL columns are then rewritten
+ * in one pass per table: rows are read in primary key order, a page of the same size at a
+ * time, and every flat upload URL whose file now lives in its shard is pointed at the shard
+ * and updated by id. None of the URL columns is indexed, so this avoids a table scan per
+ * moved file. The pass looks at the files on disk rather than at what this run moved, so it
+ * also finishes the URLs of a run that stopped part-way.
+ *
+ * Between the move and the rewrite the old URL still resolves through
+ * {@link FileStorageService#resolveStoredFile}. Once a run reports nothing moved and nothing
+ * rewritten, that fallback is no longer needed and the migration can be switched off.
+ */
+@Component
+public class UploadShardMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadShardMigrator.class);
+
+    // Columns holding upload URLs, by table; every table is keyed by a numeric id
+    private static final Map<String, List<String>> URL_COLUMNS = Map.of(
+            "media", List.of("url"),
+            "stories", List.of("media_url"),
+            "users", List.of("avatar_url", "cover_image"),
+            "image_variants", List.of("original_url", "url"));
+
+    private final FileStorageService fileStorageService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService executor;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public UploadShardMigrator(FileStorageService fileStorageService,
+                               JdbcTemplate jdbcTemplate,
+                               @Value("${file.storage.shard-migration.enabled:true}") boolean enabled,
+                               @Value("${file.storage.shard-migration.threads:4}") int threads,
+                               @Value("${file.storage.shard-migration.batch-size:500}") int batchSize) {
+        this.fileStorageService = fileStorageService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "upload-shard-migration-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        if (!enabled) {
+            return;
+        }
+        Thread coordinator = new Thread(this::migrate, "upload-shard-migration");
+        coordinator.setDaemon(true);
+        coordinator.start();
+    }
+
+    /**
+     * Runs the migration to the end and returns the number of files moved. Safe to run again;
+     * an interrupted run leaves the remaining files flat, and the next run moves them and
+     * rewrites the URLs of the files the interrupted run had already moved.
+     */
+    public int migrate() {
+        List<String> fileNames;
+        try {
+            fileNames = fileStorageService.listFlatFiles();
+        } catch (IOException e) {
+            logger.error("Could not list flat uploads: {}", e.getMessage(), e);
+            return 0;
+        }
+
+        int moved = 0;
+        if (!fileNames.isEmpty()) {
+            logger.info("Moving {} flat uploads into the sharded layout", fileNames.size());
+            for (int start = 0; start < fileNames.size(); start += batchSize) {
+                moved += migrateBatch(fileNames.subList(start, Math.min(start + batchSize, fileNames.size())));
+                logger.info("Moved {} of {} flat uploads", moved, fileNames.size());
+            }
+        }
+
+        int rewritten = 0;
+        for (Map.Entry<String, List<String>> table : URL_COLUMNS.entrySet()) {
+            rewritten += rewriteTable(table.getKey(), table.getValue());
+        }
+        logger.info("Upload shard migration completed with {} files moved and {} URLs rewritten", moved, rewritten);
+        return moved;
+    }
+
+    private int migrateBatch(List<String> fileNames) {
+        List<CompletableFuture<Boolean>> moves = fileNames.stream()
+                .map(fileName -> CompletableFuture.supplyAsync(() -> move(fileName), executor))
+                .collect(Collectors.toList());
+        int moved = 0;
+        for (CompletableFuture<Boolean> move : moves) {
+            if (move.join()) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private boolean move(String fileName) {
+        try {
+            return fileStorageService.moveToShard(fileName) != null;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not move {} into its shard, leaving it flat: {}", fileName, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Walks {@code table} by id and points every flat URL of a file now in its shard at the shard.
+     */
+    private int rewriteTable(String table, List<String> columns) {
+        String select = "SELECT id, " + String.join(", ", columns) + " FROM " + table
+                + " WHERE id > ? ORDER BY id LIMIT ?";
+        int rewritten = 0;
+        long lastId = 0;
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList(select, lastId, batchSize);
+            for (String column : columns) {
+                List<Object[]> updates = new ArrayList<>();
+                for (Map<String, Object> row : rows) {
+                    String shardedUrl = shardedUrlOf((String) row.get(column));
+                    if (shardedUrl != null) {
+                        updates.add(new Object[]{shardedUrl, row.get("id")});
+                    }
+                }
+                if (!updates.isEmpty()) {
+                    jdbcTemplate.batchUpdate("UPDATE " + table + " SET " + column + " = ? WHERE id = ?", updates);
+                    rewritten += updates.size();
+                }
+            }
+            if (!rows.isEmpty()) {
+                lastId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+            }
+        } while (rows.size() == batchSize);
+        return rewritten;
+    }
+
+    // The sharded URL for a flat upload URL whose file has moved, null for any other value
+    private String shardedUrlOf(String url) {
+        String flatPrefix = fileStorageService.urlOf("");
+        if (url == null || !url.startsWith(flatPrefix)) {
+            return null;
+        }
+        String fileName = url.substring(flatPrefix.length());
+        if (fileName.isEmpty() || fileName.contains("/") || !fileStorageService.isMovedToShard(fileName)) {
+            return null;
+        }
+        return fileStorageService.urlOf(FileStorageService.shardPrefixOf(fileName) + fileName);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,263 @@
+package com.skillshare.platform.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.dto.AuthorSummary;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Prefix index over usernames and display names for typeahead.
+ *
+ * Every user contributes a few normalized terms (lower-cased, accents stripped): the
+ * username, the full name and each word of the name. Terms are stored in a skip list as
+ * {@code term + '\0' + id}, so a prefix lookup is a sub-map range scan and users sharing a
+ * term stay distinct. Matches are ranked exact username first, then username prefix, then by
+ * follower count. The index also keeps each user's {@link AuthorSummary}, so a typeahead
+ * request does not touch the database.
+ *
+ * Prefixes matching at most {@code MAX_SCANNED} entries are ranked in full. Denser prefixes
+ * (typically the first one or two letters typed) walk users from most followed down
+ * through {@link FollowerLeaderboard#visitRanked} and stop as soon as no user left can
+ * make the top {@code limit}, so every result is ranked before anything is cut.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s._-]+");
+
+    // Prefixes with more index entries than this are ranked by walking users by popularity
+    private static final int MAX_SCANNED = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FollowerLeaderboard followerLeaderboard;
+    private final NavigableMap<String, Long> terms = new ConcurrentSkipListMap<>();
+    // Normalized usernames alone, same key layout, for the username tier of dense prefixes
+    private final NavigableMap<String, Long> usernames = new ConcurrentSkipListMap<>();
+    private final Map<Long, AuthorSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> keysByUser = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public UserSearchIndex(JdbcTemplate jdbcTemplate, FollowerLeaderboard followerLeaderboard) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.followerLeaderboard = followerLeaderboard;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        ensureLoaded();
+    }
+
+    public List<AuthorSummary> search(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        ensureLoaded();
+
+        Set<Long> matches = scan(terms, prefix, MAX_SCANNED + 1);
+        if (matches.size() > MAX_SCANNED) {
+            matches = mostFollowedMatches(prefix, limit);
+        }
+
+        return matches.stream()
+                .map(summaries::get)
+                .filter(Objects::nonNull)
+                .sorted(ranking(prefix))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Candidates for a dense prefix: every exact username match, every username prefix match
+     * when there are few enough to list, and the rest from walking users by follower count.
+     * The walk stops once {@code limit} candidates are certain to rank above any user not yet
+     * visited: candidates of a better tier, or of the same tier with more followers than the
+     * user about to be visited.
+     */
+    private Set<Long> mostFollowedMatches(String prefix, int limit) {
+        Set<Long> candidates = new LinkedHashSet<>();
+        for (Long userId : scan(terms, prefix + '\0', Integer.MAX_VALUE)) {
+            AuthorSummary summary = summaries.get(userId);
+            if (summary != null && normalize(summary.getUsername()).equals(prefix)) {
+                candidates.add(userId);
+            }
+        }
+        Set<Long> usernameMatches = scan(usernames, prefix, MAX_SCANNED + 1);
+        boolean usernamesListed = usernameMatches.size() <= MAX_SCANNED;
+        if (usernamesListed) {
+            candidates.addAll(usernameMatches);
+        }
+
+        int certain = candidates.size();
+        int[] settled = {0};
+        int[] pending = {0};
+        int[] groupFollowers = {Integer.MAX_VALUE};
+        followerLeaderboard.visitRanked((userId, followers) -> {
+            if (followers < groupFollowers[0]) {
+                // Everyone collected so far has more followers than anyone still to come
+                settled[0] += pending[0];
+                pending[0] = 0;
+                groupFollowers[0] = followers;
+            }
+            if (certain + settled[0] >= limit) {
+                return false;
+            }
+            AuthorSummary summary = summaries.get(userId);
+            if (summary == null || candidates.contains(userId)) {
+                return true;
+            }
+            boolean usernameMatch = normalize(summary.getUsername()).startsWith(prefix);
+            if (usernameMatch || matchesAnyTerm(userId, prefix)) {
+                candidates.add(userId);
+                // Until the username tier is listed, only its members can settle the walk
+                if (usernamesListed || usernameMatch) {
+                    pending[0]++;
+                }
+            }
+            return true;
+        });
+        return candidates;
+    }
+
+    private boolean matchesAnyTerm(Long userId, String prefix) {
+        Set<String> keys = keysByUser.get(userId);
+        return keys != null && keys.stream().anyMatch(key -> key.startsWith(prefix));
+    }
+
+    private static Set<Long> scan(NavigableMap<String, Long> index, String prefix, int max) {
+        Set<Long> matches = new LinkedHashSet<>();
+        for (Long userId : index.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+            matches.add(userId);
+            if (matches.size() >= max) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    public void indexAfterCommit(AuthorSummary summary) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index(summary);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index(summary);
+            }
+        });
+    }
+
+    public void index(AuthorSummary summary) {
+        ensureLoaded();
+        put(summary);
+    }
+
+    private Comparator<AuthorSummary> ranking(String prefix) {
+        Comparator<AuthorSummary> exactUsername = Comparator.comparing(s -> !normalize(s.getUsername()).equals(prefix));
+        Comparator<AuthorSummary> usernamePrefix = Comparator.comparing(s -> !normalize(s.getUsername()).startsWith(prefix));
+        Comparator<AuthorSummary> popularity = Comparator.comparingInt(s -> {
+            Integer followers = followerLeaderboard.followers(s.getId());
+            return followers != null ? -followers : 0;
+        });
+        return exactUsername.thenComparing(usernamePrefix)
+                .thenComparing(popularity)
+                .thenComparing(s -> s.getUsername().length());
+    }
+
+    private synchronized void put(AuthorSummary summary) {
+        Long userId = summary.getId();
+        Set<String> previous = keysByUser.remove(userId);
+        if (previous != null) {
+            previous.forEach(terms::remove);
+        }
+        AuthorSummary previousSummary = summaries.get(userId);
+        if (previousSummary != null) {
+            usernames.remove(normalize(previousSummary.getUsername()) + '\0' + userId);
+        }
+
+        Set<String> keys = new LinkedHashSet<>();
+        for (String term : termsOf(summary)) {
+            keys.add(term + '\0' + userId);
+        }
+        keys.forEach(key -> terms.put(key, userId));
+        keysByUser.put(userId, keys);
+        String username = normalize(summary.getUsername());
+        if (!username.isEmpty()) {
+            usernames.put(username + '\0' + userId, userId);
+        }
+        summaries.put(userId, summary);
+    }
+
+    private static List<String> termsOf(AuthorSummary summary) {
+        List<String> result = new ArrayList<>();
+        addTerm(result, summary.getUsername());
+        if (summary.getName() != null) {
+            String name = normalize(summary.getName());
+            addTerm(result, name);
+            for (String word : WORD_SEPARATORS.split(name)) {
+                addTerm(result, word);
+            }
+        }
+        return result;
+    }
+
+    private static void addTerm(List<String> result, String value) {
+        String term = normalize(value);
+        if (!term.isEmpty() && !result.contains(term)) {
+            result.add(term);
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            Map<Long, AuthorSummary> users = new LinkedHashMap<>();
+            jdbcTemplate.query("SELECT id, username, name, avatar_url FROM users", rs -> {
+                users.put(rs.getLong(1), new AuthorSummary(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+            });
+            users.values().forEach(this::put);
+            loaded = true;
+            logger.info("Indexed {} users for search in {} ms", users.size(), System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -3,23 +3,33 @@ package com.skillshare.platform.demo.service;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skillshare.platform.demo.dto.AuthorSummary;
 import com.skillshare.platform.demo.dto.UserDTO;
+import com.skillshare.platform.demo.dto.UserRankDTO;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.User;
-import com.skillshare.platform.demo.repository.StoryRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,11 +38,26 @@ public class UserService implements UserDetailsService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
-    private final UserRepository userRepository;
-    private final StoryRepository storyRepository;
+    private static final int EXPORT_BATCH_SIZE = 1000;
+    private static final int CARD_BATCH_SIZE = 500;
+
+    @Value("${users.search.max-results:50}")
+    private int searchMaxResults;
 
-    // The root upload directory (change this to your desired location)
-    private static final String UPLOAD_ROOT_DIR = "/Users/pereraw.b.n/PAF project/uploads/";
+    private final UserRepository userRepository;
+    private final StoryPresenceIndex storyPresenceIndex;
+    private final TimelineService timelineService;
+    private final ProfileCardCache profileCardCache;
+    private final FollowGraph followGraph;
+    private final SuggestionEngine suggestionEngine;
+    private final FollowerLeaderboard followerLeaderboard;
+    private final UserSearchIndex userSearchIndex;
+    private final StoryTrayService storyTrayService;
+    private final FileStorageService fileStorageService;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final ImageVariantService imageVariantService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -42,146 +67,332 @@ public class UserService implements UserDetailsService {
     }
 
     public UserDTO getUserByUsername(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
-        boolean hasActiveStories = hasActiveStories(user.getId());
-        return UserDTO.fromUser(user, false, hasActiveStories);
+        UserDTO card = profileCardCache.getByUsername(username);
+        if (card == null) {
+            User user = userRepository.findByUsername(username)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+            card = UserDTO.fromUser(user);
+            profileCardCache.put(card);
+        }
+        card.setHasActiveStories(hasActiveStories(card.getId()));
+        return withImageVariants(List.of(card)).get(0);
     }
 
     public List<UserDTO> searchUsers(String query) {
-        return userRepository.searchUsers(query).stream()
-                .map(user -> UserDTO.fromUser(user, false, hasActiveStories(user.getId())))
+        List<UserDTO> cards = userRepository.searchUsers(query, PageRequest.of(0, searchMaxResults)).stream()
+                .map(UserDTO::fromUser)
                 .collect(Collectors.toList());
+        return withActiveStories(cards);
     }
 
-    public List<UserDTO> getSuggestedUsers(int limit) {
-        return userRepository.findTopUsersByFollowers(limit).stream()
-                .map(user -> UserDTO.fromUser(user, false, hasActiveStories(user.getId())))
-                .collect(Collectors.toList());
+    public List<AuthorSummary> typeahead(String query, int limit) {
+        return userSearchIndex.search(query, limit);
+    }
+
+    /**
+     * Precomputed friends-of-friends suggestions, topped up with popular accounts the user
+     * does not follow yet when there are fewer than {@code limit}.
+     */
+    public List<UserDTO> getSuggestedUsers(Long currentUserId, int limit) {
+        List<Long> ids = new ArrayList<>(suggestionEngine.suggestionsFor(currentUserId, limit));
+        if (ids.size() < limit) {
+            for (Long id : followerLeaderboard.top(limit * 2)) {
+                if (ids.size() < limit && !id.equals(currentUserId) && !ids.contains(id)
+                        && !followGraph.isFollowing(currentUserId, id)) {
+                    ids.add(id);
+                }
+            }
+        }
+        return mapUserCards(ids);
     }
 
-    @Transactional
     public UserDTO updateUser(Long id, UserDTO userDTO, MultipartFile profileImage, MultipartFile coverImage)
             throws IOException {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        // Images are stored before the transaction opens, so the user row is never locked while
+        // an upload is written or while a blob's reference count is taken
+        List<String> storedUrls = new ArrayList<>();
+        String avatarUrl;
+        String coverUrl;
+        try {
+            avatarUrl = storeIfPresent(profileImage, storedUrls);
+            coverUrl = storeIfPresent(coverImage, storedUrls);
+        } catch (IOException | RuntimeException e) {
+            storedUrls.forEach(mediaDeletionQueue::delete);
+            throw e;
+        }
 
-        // Update user fields
-        if (userDTO.getUsername() != null && !userDTO.getUsername().isEmpty())
-            user.setUsername(userDTO.getUsername());
+        try {
+            return transactionTemplate.execute(status -> {
+                User user = userRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+
+                // Update user fields
+                if (userDTO.getUsername() != null && !userDTO.getUsername().isEmpty())
+                    user.setUsername(userDTO.getUsername());
+
+                if (userDTO.getName() != null)
+                    user.setName(userDTO.getName());
+
+                if (userDTO.getEmail() != null && !userDTO.getEmail().isEmpty())
+                    user.setEmail(userDTO.getEmail());
+
+                if (userDTO.getBio() != null)
+                    user.setBio(userDTO.getBio());
+
+                if (userDTO.getLocation() != null)
+                    user.setLocation(userDTO.getLocation());
+
+                // The replaced images are released once the update commits
+                if (avatarUrl != null) {
+                    releaseAfterCommit(user.getAvatarUrl());
+                    user.setAvatarUrl(avatarUrl);
+                    imageVariantService.generateAfterCommit(avatarUrl, ImageVariantService.Purpose.AVATAR);
+                }
+
+                if (coverUrl != null) {
+                    releaseAfterCommit(user.getCoverImage());
+                    user.setCoverImage(coverUrl);
+                    imageVariantService.generateAfterCommit(coverUrl, ImageVariantService.Purpose.COVER);
+                }
+
+                // Save updated user
+                User saved = userRepository.save(user);
+                profileCardCache.invalidateAfterCommit(id);
+                userSearchIndex.indexAfterCommit(AuthorSummary.fromUser(saved));
+                return withImageVariants(List.of(UserDTO.fromUser(saved, false, hasActiveStories(saved.getId())))).get(0);
+            });
+        } catch (RuntimeException e) {
+            // Rolled back: drop the references taken for the new images
+            storedUrls.forEach(mediaDeletionQueue::delete);
+            throw e;
+        }
+    }
 
-        if (userDTO.getName() != null)
-            user.setName(userDTO.getName());
+    private String storeIfPresent(MultipartFile file, List<String> storedUrls) throws IOException {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        String url = fileStorageService.storeFile(file);
+        storedUrls.add(url);
+        return url;
+    }
 
-        if (userDTO.getEmail() != null && !userDTO.getEmail().isEmpty())
-            user.setEmail(userDTO.getEmail());
+    private void releaseAfterCommit(String fileUrl) {
+        if (fileStorageService.isStored(fileUrl)) {
+            mediaDeletionQueue.deleteAfterCommit(fileUrl);
+        }
+    }
 
-        if (userDTO.getBio() != null)
-            user.setBio(userDTO.getBio());
+    @Transactional
+    public void followUser(Long currentUserId, Long targetUserId) {
+        if (currentUserId.equals(targetUserId))
+            throw new IllegalArgumentException("You cannot follow yourself");
 
-        if (userDTO.getLocation() != null)
-            user.setLocation(userDTO.getLocation());
+        requireFollowParticipants(currentUserId, targetUserId);
 
-        // Handle profile image upload
-        if (profileImage != null && !profileImage.isEmpty()) {
-            String profileImageUrl = uploadFile(profileImage, "profile-images");
-            user.setAvatarUrl(profileImageUrl);
+        // INSERT IGNORE: the counters only move when the edge is actually new
+        if (userRepository.insertFollow(currentUserId, targetUserId) > 0) {
+            adjustFollowCounters(currentUserId, targetUserId, 1);
+            followGraph.recordFollowAfterCommit(currentUserId, targetUserId);
+            suggestionEngine.recordFollowChangeAfterCommit(currentUserId);
+            timelineService.onFollow(currentUserId, targetUserId);
         }
+    }
 
-        // Handle cover image upload
-        if (coverImage != null && !coverImage.isEmpty()) {
-            String coverImageUrl = uploadFile(coverImage, "cover-images");
-            user.setCoverImage(coverImageUrl);
+    @Transactional
+    public void unfollowUser(Long currentUserId, Long targetUserId) {
+        requireFollowParticipants(currentUserId, targetUserId);
+
+        if (userRepository.deleteFollow(currentUserId, targetUserId) > 0) {
+            adjustFollowCounters(currentUserId, targetUserId, -1);
+            followGraph.recordUnfollowAfterCommit(currentUserId, targetUserId);
+            suggestionEngine.recordFollowChangeAfterCommit(currentUserId);
+            timelineService.onUnfollow(currentUserId, targetUserId);
         }
+    }
 
-        // Save updated user
-        user = userRepository.save(user);
-        return UserDTO.fromUser(user, false, hasActiveStories(user.getId()));
+    private void requireFollowParticipants(Long currentUserId, Long targetUserId) {
+        if (!userRepository.existsById(currentUserId))
+            throw new ResourceNotFoundException("Current user not found");
+        if (!userRepository.existsById(targetUserId))
+            throw new ResourceNotFoundException("Target user not found");
     }
 
-    private String uploadFile(MultipartFile file, String folder) throws IOException {
-        // Define the path to store the files
-        String uploadDir = UPLOAD_ROOT_DIR + folder + "/";
-        Path path = Paths.get(uploadDir);
+    private void adjustFollowCounters(Long followerId, Long followedId, int delta) {
+        userRepository.adjustFollowingCount(followerId, delta);
+        userRepository.adjustFollowersCount(followedId, delta);
+        followerLeaderboard.recordAfterCommit(followedId, delta);
+        profileCardCache.invalidateAfterCommit(followerId);
+        profileCardCache.invalidateAfterCommit(followedId);
+        storyTrayService.invalidateAfterCommit(followerId);
+    }
 
-        // Log the upload directory for debugging purposes
-        logger.info("Upload directory: {}", uploadDir);
+    public boolean isFollowing(Long currentUserId, Long targetUserId) {
+        return followGraph.isFollowing(currentUserId, targetUserId);
+    }
 
-        // Check if directory exists, if not create it
-        if (!Files.exists(path)) {
-            Files.createDirectories(path);
-            logger.info("Created directory: {}", uploadDir);
-        }
+    /**
+     * Sets {@code isFollowing} on every card with one pass over the viewer's adjacency list.
+     */
+    public void resolveFollowing(Long currentUserId, List<UserDTO> users) {
+        Set<Long> followed = followGraph.followedAmong(currentUserId,
+                users.stream().map(UserDTO::getId).collect(Collectors.toList()));
+        users.forEach(user -> user.setFollowing(followed.contains(user.getId())));
+    }
 
-        // Generate a unique filename using current timestamp
-        String filename = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        Path filePath = path.resolve(filename);
+    public List<UserDTO> getPopularUsers(int limit) {
+        return mapUserCards(followerLeaderboard.top(limit));
+    }
 
-        // Log the file path for debugging purposes
-        logger.info("Saving file to: {}", filePath);
+    public UserRankDTO getFollowerRank(Long userId) {
+        Long rank = followerLeaderboard.rank(userId);
+        if (rank == null)
+            throw new ResourceNotFoundException("User not found");
+        return UserRankDTO.builder()
+                .userId(userId)
+                .followersCount(followerLeaderboard.followers(userId))
+                .rank(rank)
+                .build();
+    }
 
-        // Save the file to the directory
-        file.transferTo(filePath.toFile());
+    /**
+     * Every follower, from the follow graph's adjacency array. Cards are built a batch at a time
+     * so no single lookup carries the whole list; the cursor endpoints serve clients that page.
+     */
+    public List<UserDTO> getFollowers(Long userId) {
+        ensureUserExists(userId);
+        return mapUserCardsInBatches(followGraph.followers(userId));
+    }
 
-        // Return the relative URL for the uploaded file
-        return "/uploads/" + folder + "/" + filename;
+    public List<UserDTO> getFollowing(Long userId) {
+        ensureUserExists(userId);
+        return mapUserCardsInBatches(followGraph.following(userId));
     }
 
-    @Transactional
-    public void followUser(Long currentUserId, Long targetUserId) {
-        if (currentUserId.equals(targetUserId))
-            throw new IllegalArgumentException("You cannot follow yourself");
+    public CursorPage<UserDTO> getFollowersBefore(Long userId, Long beforeId, int size) {
+        ensureUserExists(userId);
+        List<Long> ids = userRepository.findFollowerIdsBefore(userId, startOf(beforeId), size + 1);
+        return CursorPage.fromKeyedRows(ids, size, String::valueOf, this::mapUserCards);
+    }
 
-        User currentUser = userRepository.findById(currentUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+    public CursorPage<UserDTO> getFollowingBefore(Long userId, Long beforeId, int size) {
+        ensureUserExists(userId);
+        List<Long> ids = userRepository.findFollowingIdsBefore(userId, startOf(beforeId), size + 1);
+        return CursorPage.fromKeyedRows(ids, size, String::valueOf, this::mapUserCards);
+    }
 
-        User targetUser = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Target user not found"));
+    /**
+     * Writes every follower as one JSON line, walking the keyset in batches so memory stays flat
+     * however large the account is.
+     */
+    public void exportFollowers(Long userId, OutputStream out) throws IOException {
+        exportEdges(userId, userRepository::findFollowerIdsBefore, out);
+    }
 
-        // Add current user to target user's followers list
-        targetUser.getFollowers().add(currentUser);
-        userRepository.save(targetUser);
+    public void exportFollowing(Long userId, OutputStream out) throws IOException {
+        exportEdges(userId, userRepository::findFollowingIdsBefore, out);
     }
 
-    @Transactional
-    public void unfollowUser(Long currentUserId, Long targetUserId) {
-        User currentUser = userRepository.findById(currentUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+    public void ensureUserExists(Long userId) {
+        if (!userRepository.existsById(userId))
+            throw new ResourceNotFoundException("User not found");
+    }
 
-        User targetUser = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Target user not found"));
+    private void exportEdges(Long userId, EdgePageQuery query, OutputStream out) throws IOException {
+        long beforeId = Long.MAX_VALUE;
+        List<Long> ids;
+        do {
+            ids = query.findIdsBefore(userId, beforeId, EXPORT_BATCH_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Map<Long, AuthorSummary> summaries = userRepository.findAuthorSummariesByIds(ids).stream()
+                    .collect(Collectors.toMap(AuthorSummary::getId, Function.identity()));
+            for (Long id : ids) {
+                AuthorSummary summary = summaries.get(id);
+                if (summary != null) {
+                    out.write(objectMapper.writeValueAsBytes(summary));
+                    out.write('\n');
+                }
+            }
+            out.flush();
+            beforeId = ids.get(ids.size() - 1);
+        } while (ids.size() == EXPORT_BATCH_SIZE);
+    }
 
-        // Remove current user from target user's followers list
-        targetUser.getFollowers().remove(currentUser);
-        userRepository.save(targetUser);
+    private static long startOf(Long beforeId) {
+        return beforeId != null ? beforeId : Long.MAX_VALUE;
     }
 
-    public boolean isFollowing(Long currentUserId, Long targetUserId) {
-        User currentUser = userRepository.findById(currentUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
-        User targetUser = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Target user not found"));
-        return targetUser.getFollowers().contains(currentUser);
+    private List<UserDTO> mapUserCardsInBatches(long[] userIds) {
+        List<UserDTO> cards = new ArrayList<>(userIds.length);
+        for (int from = 0; from < userIds.length; from += CARD_BATCH_SIZE) {
+            int to = Math.min(from + CARD_BATCH_SIZE, userIds.length);
+            cards.addAll(mapUserCards(Arrays.stream(userIds, from, to).boxed().collect(Collectors.toList())));
+        }
+        return cards;
     }
 
-    public List<UserDTO> getFollowers(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        return user.getFollowers().stream()
-                .map(follower -> UserDTO.fromUser(follower, false, hasActiveStories(follower.getId())))
-                .collect(Collectors.toList());
+    /**
+     * Builds cards for the given ids in order: cached cards first, the rest with one
+     * {@code findAllById}, and active stories with one query for the whole list.
+     */
+    private List<UserDTO> mapUserCards(List<Long> userIds) {
+        Map<Long, UserDTO> cards = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : userIds) {
+            UserDTO card = profileCardCache.get(id);
+            if (card != null) {
+                cards.put(id, card);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            userRepository.findAllById(missing).forEach(user -> {
+                UserDTO card = UserDTO.fromUser(user);
+                profileCardCache.put(card);
+                cards.put(user.getId(), card);
+            });
+        }
+
+        return withActiveStories(userIds.stream()
+                .map(cards::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
     }
 
-    public List<UserDTO> getFollowing(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        return user.getFollowing().stream()
-                .map(following -> UserDTO.fromUser(following, false, hasActiveStories(following.getId())))
-                .collect(Collectors.toList());
+    private List<UserDTO> withActiveStories(List<UserDTO> cards) {
+        if (cards.isEmpty()) {
+            return cards;
+        }
+        Set<Long> withStories = storyPresenceIndex.withActiveStories(
+                cards.stream().map(UserDTO::getId).collect(Collectors.toList()));
+        cards.forEach(card -> card.setHasActiveStories(withStories.contains(card.getId())));
+        return withImageVariants(cards);
+    }
+
+    // Variants become ready after the card is cached, so they are looked up on every read
+    private List<UserDTO> withImageVariants(List<UserDTO> cards) {
+        List<String> imageUrls = new ArrayList<>();
+        cards.forEach(card -> {
+            imageUrls.add(card.getAvatarUrl());
+            imageUrls.add(card.getCoverImage());
+        });
+        Map<String, Map<String, String>> variants = imageVariantService.variantsOf(imageUrls);
+        cards.forEach(card -> {
+            card.setAvatarVariants(variants.getOrDefault(card.getAvatarUrl(), Map.of()));
+            card.setCoverVariants(variants.getOrDefault(card.getCoverImage(), Map.of()));
+        });
+        return cards;
+    }
+
+    @FunctionalInterface
+    private interface EdgePageQuery {
+        List<Long> findIdsBefore(Long userId, Long beforeId, int limit);
     }
 
     private boolean hasActiveStories(Long userId) {
-        return !storyRepository.findByUserIdAndExpiresAtAfterOrderByCreatedAtDesc(
-                userId, LocalDateTime.now()).isEmpty();
+        return storyPresenceIndex.hasActiveStories(userId);
     }
 }
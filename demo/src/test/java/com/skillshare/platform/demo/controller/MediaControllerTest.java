@@ -0,0 +1,208 @@
+package com.skillshare.platform.demo.controller;
+
+import com.skillshare.platform.demo.service.FileStorageService;
+import com.skillshare.platform.demo.service.StoredBlobRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class MediaControllerTest {
+
+	@TempDir
+	Path uploadDir;
+
+	private final byte[] content = new byte[100];
+	private FileStorageService storage;
+	private MediaController controller;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		Files.write(uploadDir.resolve("clip.mp4"), content);
+		storage = new FileStorageService(uploadDir.toString(), "uploads", 1, 1, false, mock(StoredBlobRegistry.class));
+		controller = new MediaController(storage, "uploads", 60);
+	}
+
+	@AfterEach
+	void tearDown() {
+		storage.shutdown();
+	}
+
+	@Test
+	void servesTheWholeFileWithoutRange() throws Exception {
+		MockHttpServletResponse response = serve(request());
+
+		assertEquals(200, response.getStatus());
+		assertEquals("video/mp4", response.getContentType());
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		assertNotNull(response.getHeader(HttpHeaders.ETAG));
+		assertArrayEquals(content, response.getContentAsByteArray());
+	}
+
+	@Test
+	void servesASingleRange() throws Exception {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 10-19/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(10, response.getContentLength());
+		assertArrayEquals(Arrays.copyOfRange(content, 10, 20), response.getContentAsByteArray());
+	}
+
+	@Test
+	void servesASuffixRange() throws Exception {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=-5");
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 95-99/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertArrayEquals(Arrays.copyOfRange(content, 95, 100), response.getContentAsByteArray());
+	}
+
+	@Test
+	void servesMultipleRangesAsMultipart() throws Exception {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-1,50-52");
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(206, response.getStatus());
+		assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="), response.getContentType());
+		String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+		String body = new String(response.getContentAsByteArray(), StandardCharsets.ISO_8859_1);
+		String expected = "\r\n--" + boundary + "\r\n"
+				+ "Content-Type: video/mp4\r\n"
+				+ "Content-Range: bytes 0-1/100\r\n\r\n"
+				+ new String(new byte[]{0, 1}, StandardCharsets.ISO_8859_1)
+				+ "\r\n--" + boundary + "\r\n"
+				+ "Content-Type: video/mp4\r\n"
+				+ "Content-Range: bytes 50-52/100\r\n\r\n"
+				+ new String(new byte[]{50, 51, 52}, StandardCharsets.ISO_8859_1)
+				+ "\r\n--" + boundary + "--\r\n";
+		assertEquals(expected, body);
+	}
+
+	@Test
+	void answersNotModifiedForAMatchingETag() throws Exception {
+		String etag = serve(request()).getHeader(HttpHeaders.ETAG);
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(304, response.getStatus());
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void rejectsARangePastTheEnd() throws Exception {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=100-200");
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void rejectsAMalformedRange() throws Exception {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "lines=1-2");
+
+		assertEquals(416, serve(request).getStatus());
+	}
+
+	@Test
+	void honoursIfRangeWithTheCurrentETag() throws Exception {
+		String etag = serve(request()).getHeader(HttpHeaders.ETAG);
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+		request.addHeader(HttpHeaders.IF_RANGE, etag);
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(206, response.getStatus());
+		assertArrayEquals(Arrays.copyOfRange(content, 10, 20), response.getContentAsByteArray());
+	}
+
+	@Test
+	void servesTheWholeFileForAStaleIfRangeETag() throws Exception {
+		for (String ifRange : new String[]{"\"0-0\"", "W/\"0-0\"", "not a date"}) {
+			MockHttpServletRequest request = request();
+			request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+			request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+
+			MockHttpServletResponse response = serve(request);
+
+			assertEquals(200, response.getStatus(), ifRange);
+			assertArrayEquals(content, response.getContentAsByteArray(), ifRange);
+		}
+	}
+
+	@Test
+	void servesTheWholeFileForAnIfRangeDateBeforeTheLastChange() throws Exception {
+		MockHttpServletRequest request = request();
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+		request.addHeader(HttpHeaders.IF_RANGE, "Thu, 01 Jan 1970 00:00:01 GMT");
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(200, response.getStatus());
+		assertArrayEquals(content, response.getContentAsByteArray());
+	}
+
+	@Test
+	void writesOnlyHeadersForHead() throws Exception {
+		MockHttpServletRequest request = request();
+		request.setMethod("HEAD");
+		request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(206, response.getStatus());
+		assertEquals(10, response.getContentLength());
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void hidesMissingAndDotFiles() throws Exception {
+		Files.createDirectories(uploadDir.resolve(".incoming"));
+		Files.write(uploadDir.resolve(".incoming/part"), content);
+
+		assertEquals(404, serve(new MockHttpServletRequest("GET", "/uploads/missing.mp4")).getStatus());
+		assertEquals(404, serve(new MockHttpServletRequest("GET", "/uploads/.incoming/part")).getStatus());
+	}
+
+	private static MockHttpServletRequest request() {
+		return new MockHttpServletRequest("GET", "/uploads/clip.mp4");
+	}
+
+	private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		controller.serve(request, response);
+		return response;
+	}
+}
@@ -0,0 +1,59 @@
+package com.skillshare.platform.demo.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+
+	@Test
+	void roundTripsThroughItsToken() {
+		Cursor cursor = new Cursor(LocalDateTime.of(2024, 3, 5, 17, 42, 8, 123_000_000), 42L);
+
+		Cursor decoded = Cursor.decode(cursor.encode());
+
+		assertEquals(cursor.getCreatedAt(), decoded.getCreatedAt());
+		assertEquals(cursor.getId(), decoded.getId());
+	}
+
+	@Test
+	void tokenIsUrlSafe() {
+		String token = new Cursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59), Long.MAX_VALUE).encode();
+
+		assertFalse(token.contains("+") || token.contains("/") || token.contains("="), token);
+	}
+
+	@Test
+	void missingTokenStartsAtTheNewestRow() {
+		assertSame(Cursor.start(), Cursor.decode(null));
+		assertSame(Cursor.start(), Cursor.decode(" "));
+		assertEquals(Long.MAX_VALUE, Cursor.start().getId());
+	}
+
+	@Test
+	void rejectsMalformedTokens() {
+		assertThrows(IllegalArgumentException.class, () -> Cursor.decode("not base64!"));
+		assertThrows(IllegalArgumentException.class, () -> Cursor.decode(encodeRaw("no-separator")));
+		assertThrows(IllegalArgumentException.class, () -> Cursor.decode(encodeRaw("yesterday|12")));
+		assertThrows(IllegalArgumentException.class, () -> Cursor.decode(encodeRaw("2024-01-01T00:00|abc")));
+	}
+
+	@Test
+	void clampsPageSize() {
+		assertEquals(1, Cursor.clampSize(0));
+		assertEquals(1, Cursor.clampSize(-5));
+		assertEquals(20, Cursor.clampSize(20));
+		assertEquals(Cursor.MAX_SIZE, Cursor.clampSize(1000));
+	}
+
+	private static String encodeRaw(String raw) {
+		return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
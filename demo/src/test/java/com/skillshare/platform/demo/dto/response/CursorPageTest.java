@@ -0,0 +1,60 @@
+package com.skillshare.platform.demo.dto.response;
+
+import com.skillshare.platform.demo.dto.Cursor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorPageTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+	@Test
+	void extraRowMeansAnotherPage() {
+		List<Long> rows = List.of(5L, 4L, 3L, 2L);
+
+		CursorPage<String> page = CursorPage.fromRows(rows, 3, CursorPageTest::cursorOf, CursorPageTest::render);
+
+		assertEquals(List.of("5", "4", "3"), page.getContent());
+		assertTrue(page.isHasNext());
+		Cursor next = Cursor.decode(page.getNextCursor());
+		assertEquals(3L, next.getId());
+		assertEquals(NOW.plusMinutes(3), next.getCreatedAt());
+	}
+
+	@Test
+	void lastPageHasNoCursor() {
+		CursorPage<String> full = CursorPage.fromRows(List.of(2L, 1L), 2, CursorPageTest::cursorOf, CursorPageTest::render);
+		CursorPage<String> empty = CursorPage.fromRows(List.<Long>of(), 2, CursorPageTest::cursorOf, CursorPageTest::render);
+
+		assertEquals(List.of("2", "1"), full.getContent());
+		assertFalse(full.isHasNext());
+		assertNull(full.getNextCursor());
+		assertTrue(empty.getContent().isEmpty());
+		assertNull(empty.getNextCursor());
+	}
+
+	@Test
+	void keyedRowsUseThePlainToken() {
+		CursorPage<Long> page = CursorPage.fromKeyedRows(List.of(30L, 20L, 10L), 2, String::valueOf, Function.identity());
+
+		assertEquals(List.of(30L, 20L), page.getContent());
+		assertEquals("20", page.getNextCursor());
+	}
+
+	private static Cursor cursorOf(Long id) {
+		return new Cursor(NOW.plusMinutes(id), id);
+	}
+
+	private static List<String> render(List<Long> rows) {
+		return rows.stream().map(String::valueOf).collect(Collectors.toList());
+	}
+}
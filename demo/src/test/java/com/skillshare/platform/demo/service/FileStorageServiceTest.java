@@ -0,0 +1,212 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStorageServiceTest {
+
+	private static final DateTimeFormatter BUCKET = DateTimeFormatter.ofPattern("yyyyMMddHH");
+
+	@TempDir
+	Path uploadDir;
+
+	private final CountingRegistry storedBlobRegistry = new CountingRegistry();
+	private FileStorageService storage;
+
+	@BeforeEach
+	void setUp() {
+		storage = new FileStorageService(uploadDir.toString(), "uploads", 1, 1, true, storedBlobRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		storage.shutdown();
+	}
+
+	@Test
+	void roundsEphemeralExpiryUpToTheHour() {
+		assertEquals("2024030510", FileStorageService.ephemeralBucketOf(LocalDateTime.of(2024, 3, 5, 10, 0)));
+		assertEquals("2024030511", FileStorageService.ephemeralBucketOf(LocalDateTime.of(2024, 3, 5, 10, 0, 0, 1)));
+		assertEquals("2024030511", FileStorageService.ephemeralBucketOf(LocalDateTime.of(2024, 3, 5, 10, 59, 59)));
+		assertEquals("2025010100", FileStorageService.ephemeralBucketOf(LocalDateTime.of(2024, 12, 31, 23, 15)));
+	}
+
+	@Test
+	void storesEphemeralFilesInTheBucketOfTheirExpiry() throws Exception {
+		LocalDateTime expiresAt = LocalDateTime.of(2030, 1, 1, 11, 20);
+
+		String url = storage.storeEphemeralFile(
+				new MockMultipartFile("file", "story.jpg", "image/jpeg", new byte[]{1, 2, 3}), expiresAt);
+
+		assertTrue(url.startsWith("/uploads/ephemeral/2030010112/"), url);
+		assertTrue(storage.isEphemeral(url));
+		assertTrue(Files.isRegularFile(storage.resolveStoredUrl(url)));
+	}
+
+	@Test
+	void sweepDropsBucketsWhoseHourHasStarted() throws Exception {
+		LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+		Path ephemeral = uploadDir.resolve("ephemeral");
+		Path past = bucketWithFile(ephemeral, hour.minusHours(2).format(BUCKET));
+		Path current = bucketWithFile(ephemeral, hour.format(BUCKET));
+		Path next = bucketWithFile(ephemeral, hour.plusHours(1).format(BUCKET));
+		Path unrelated = bucketWithFile(ephemeral, "drafts");
+
+		assertEquals(2, storage.dropExpiredEphemeralBuckets());
+
+		assertFalse(Files.exists(past));
+		assertFalse(Files.exists(current));
+		assertTrue(Files.isDirectory(next));
+		assertTrue(Files.isDirectory(unrelated));
+	}
+
+	@Test
+	void writesUuidNamedUploadsIntoTheirShard() throws Exception {
+		FileStorageService plain = new FileStorageService(uploadDir.toString(), "uploads", 1, 1, false, storedBlobRegistry);
+		try {
+			byte[] content = {4, 5, 6};
+			List<String> urls = plain.storeFiles(List.of(
+					new MockMultipartFile("file", "a.mp4", "video/mp4", content),
+					new MockMultipartFile("file", "b.mp4", "video/mp4", content)));
+
+			assertEquals(2, urls.size());
+			for (String url : urls) {
+				String name = url.substring(url.lastIndexOf('/') + 1);
+				assertEquals("/uploads/" + FileStorageService.shardPrefixOf(name) + name, url);
+				assertArrayEquals(content, Files.readAllBytes(plain.resolveStoredUrl(url)));
+			}
+		} finally {
+			plain.shutdown();
+		}
+	}
+
+	@Test
+	void identicalUploadsShareOneCountedFile() throws Exception {
+		String first = storage.storeFile(new MockMultipartFile("file", "a.png", "image/png", new byte[]{7, 7, 7}));
+		String second = storage.storeFile(new MockMultipartFile("file", "b.png", "image/png", new byte[]{7, 7, 7}));
+		String other = storage.storeFile(new MockMultipartFile("file", "c.png", "image/png", new byte[]{8}));
+
+		assertEquals(first, second);
+		assertTrue(storage.isContentAddressed(first));
+		assertEquals(2, storedBlobRegistry.references(first));
+		assertEquals(1, storedBlobRegistry.references(other));
+	}
+
+	@Test
+	void unlinksSharedFileOnlyWithTheLastReference() throws Exception {
+		byte[] content = {1, 2, 3, 4};
+		String url = storage.storeFile(new MockMultipartFile("file", "a.jpg", "image/jpeg", content));
+		storage.storeFile(new MockMultipartFile("file", "b.jpg", "image/jpeg", content));
+		Path file = storage.resolveStoredUrl(url);
+
+		assertFalse(storage.deleteFile(url));
+		assertTrue(Files.isRegularFile(file));
+		assertEquals(1, storedBlobRegistry.references(url));
+
+		assertTrue(storage.deleteFile(url));
+		assertFalse(Files.exists(file));
+		assertEquals(0, storedBlobRegistry.references(url));
+	}
+
+	@Test
+	void keepsAReleasedFileThatWasStoredAgainBeforeTheUnlink() throws Exception {
+		byte[] content = {5, 6, 7};
+		String url = storage.storeFile(new MockMultipartFile("file", "a.jpg", "image/jpeg", content));
+		Path file = storage.resolveStoredUrl(url);
+
+		assertTrue(storage.releaseFile(url));
+		storage.storeFile(new MockMultipartFile("file", "b.jpg", "image/jpeg", content));
+
+		assertFalse(storage.unlinkReleasedFile(url));
+		assertTrue(Files.isRegularFile(file));
+		assertEquals(1, storedBlobRegistry.references(url));
+	}
+
+	@Test
+	void retriedUnlinkDoesNotReleaseAgain() throws Exception {
+		byte[] content = {8, 9};
+		String url = storage.storeFile(new MockMultipartFile("file", "a.jpg", "image/jpeg", content));
+		storage.storeFile(new MockMultipartFile("file", "b.jpg", "image/jpeg", content));
+
+		assertFalse(storage.releaseFile(url));
+		assertFalse(storage.unlinkReleasedFile(url));
+		assertFalse(storage.unlinkReleasedFile(url));
+		assertEquals(1, storedBlobRegistry.references(url));
+	}
+
+	@Test
+	void unlinksANewFileWhoseReferenceCouldNotBeRecorded() throws Exception {
+		byte[] kept = {1, 1};
+		String keptUrl = storage.storeFile(new MockMultipartFile("file", "a.jpg", "image/jpeg", kept));
+		storedBlobRegistry.failRetains = true;
+
+		assertThrows(IllegalStateException.class,
+				() -> storage.storeFile(new MockMultipartFile("file", "b.jpg", "image/jpeg", new byte[]{2, 2})));
+		assertThrows(IllegalStateException.class,
+				() -> storage.storeFile(new MockMultipartFile("file", "c.jpg", "image/jpeg", kept)));
+
+		try (Stream<Path> files = Files.walk(uploadDir)) {
+			assertEquals(List.of(storage.resolveStoredUrl(keptUrl)), files.filter(Files::isRegularFile).collect(Collectors.toList()));
+		}
+		assertEquals(1, storedBlobRegistry.references(keptUrl));
+	}
+
+	private static Path bucketWithFile(Path ephemeral, String name) throws Exception {
+		Path bucket = Files.createDirectories(ephemeral.resolve(name));
+		Files.write(bucket.resolve("media.jpg"), new byte[]{1});
+		return bucket;
+	}
+
+	// In-memory stored_blobs with the same retain/release semantics
+	private static final class CountingRegistry extends StoredBlobRegistry {
+		private final Map<String, Integer> refCounts = new HashMap<>();
+		private volatile boolean failRetains;
+
+		CountingRegistry() {
+			super(null, null);
+		}
+
+		@Override
+		public synchronized void retain(String name, long sizeBytes) {
+			if (failRetains) {
+				throw new IllegalStateException("stored_blobs is unavailable");
+			}
+			refCounts.merge(name, 1, Integer::sum);
+		}
+
+		@Override
+		public synchronized boolean release(String name) {
+			refCounts.computeIfPresent(name, (key, count) -> count > 1 ? count - 1 : null);
+			return !refCounts.containsKey(name);
+		}
+
+		@Override
+		public synchronized boolean isReferenced(String name) {
+			return refCounts.containsKey(name);
+		}
+
+		synchronized int references(String url) {
+			return refCounts.getOrDefault(url.substring(url.lastIndexOf('/') + 1), 0);
+		}
+	}
+}
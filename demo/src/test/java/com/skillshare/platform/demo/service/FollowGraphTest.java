@@ -0,0 +1,59 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FollowGraphTest {
+
+	@Test
+	void insertKeepsIdsSorted() {
+		long[] ids = FollowGraph.insert(null, 5);
+		ids = FollowGraph.insert(ids, 9);
+		ids = FollowGraph.insert(ids, 1);
+		ids = FollowGraph.insert(ids, 7);
+
+		assertArrayEquals(new long[]{1, 5, 7, 9}, ids);
+	}
+
+	@Test
+	void insertOfExistingIdReturnsSameArray() {
+		long[] ids = {2, 4, 6};
+
+		assertSame(ids, FollowGraph.insert(ids, 4));
+	}
+
+	@Test
+	void insertNeverModifiesThePublishedArray() {
+		long[] ids = {2, 4, 6};
+
+		long[] updated = FollowGraph.insert(ids, 3);
+
+		assertArrayEquals(new long[]{2, 4, 6}, ids);
+		assertArrayEquals(new long[]{2, 3, 4, 6}, updated);
+	}
+
+	@Test
+	void deleteRemovesFromAnyPosition() {
+		long[] ids = {1, 3, 5, 7};
+
+		assertArrayEquals(new long[]{3, 5, 7}, FollowGraph.delete(ids, 1));
+		assertArrayEquals(new long[]{1, 3, 7}, FollowGraph.delete(ids, 5));
+		assertArrayEquals(new long[]{1, 3, 5}, FollowGraph.delete(ids, 7));
+		assertArrayEquals(new long[]{1, 3, 5, 7}, ids);
+	}
+
+	@Test
+	void deleteOfMissingIdReturnsSameArray() {
+		long[] ids = {1, 3, 5};
+
+		assertSame(ids, FollowGraph.delete(ids, 4));
+	}
+
+	@Test
+	void deleteOfLastIdDropsTheEntry() {
+		assertNull(FollowGraph.delete(new long[]{8}, 8));
+	}
+}
@@ -0,0 +1,82 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class FollowerLeaderboardTest {
+
+	private final FollowerLeaderboard leaderboard = new FollowerLeaderboard(mock(JdbcTemplate.class));
+
+	@Test
+	void tiedUsersShareACompetitionRank() {
+		leaderboard.adjust(1L, 10);
+		leaderboard.adjust(2L, 30);
+		leaderboard.adjust(3L, 10);
+		leaderboard.adjust(4L, 5);
+
+		assertEquals(1L, leaderboard.rank(2L));
+		assertEquals(2L, leaderboard.rank(1L));
+		assertEquals(2L, leaderboard.rank(3L));
+		assertEquals(4L, leaderboard.rank(4L));
+		assertNull(leaderboard.rank(99L));
+		assertEquals(List.of(2L, 1L, 3L, 4L), leaderboard.top(10));
+	}
+
+	@Test
+	void ranksCountsOnBothSidesOfTheDenseRange() {
+		leaderboard.adjust(1L, 2_000_000_000);
+		leaderboard.adjust(2L, 70_000);
+		leaderboard.adjust(3L, 65_536);
+		leaderboard.adjust(4L, 65_535);
+		leaderboard.adjust(5L, 70_000);
+
+		assertEquals(1L, leaderboard.rank(1L));
+		assertEquals(2L, leaderboard.rank(2L));
+		assertEquals(2L, leaderboard.rank(5L));
+		assertEquals(4L, leaderboard.rank(3L));
+		assertEquals(5L, leaderboard.rank(4L));
+	}
+
+	@Test
+	void movesUsersAcrossTheDenseRangeBoundary() {
+		leaderboard.adjust(1L, 65_530);
+		leaderboard.adjust(2L, 65_540);
+
+		leaderboard.adjust(1L, 20);
+		assertEquals(1L, leaderboard.rank(1L));
+		assertEquals(2L, leaderboard.rank(2L));
+
+		leaderboard.adjust(1L, -30);
+		assertEquals(2L, leaderboard.rank(1L));
+		assertEquals(1L, leaderboard.rank(2L));
+		assertEquals(65_520, leaderboard.followers(1L));
+	}
+
+	@Test
+	void matchesABruteForceRanking() {
+		Random random = new Random(42);
+		Map<Long, Integer> followers = new HashMap<>();
+		for (int step = 0; step < 5_000; step++) {
+			long userId = random.nextInt(300);
+			int delta = random.nextBoolean()
+					? random.nextInt(200) - 100
+					: random.nextInt(200_000) - 100_000;
+			leaderboard.adjust(userId, delta);
+			followers.put(userId, Math.max(0, followers.getOrDefault(userId, 0) + delta));
+		}
+
+		for (Map.Entry<Long, Integer> user : followers.entrySet()) {
+			long ahead = followers.values().stream().filter(count -> count > user.getValue()).count();
+			assertEquals(ahead + 1, leaderboard.rank(user.getKey()), "rank of user " + user.getKey());
+		}
+	}
+}
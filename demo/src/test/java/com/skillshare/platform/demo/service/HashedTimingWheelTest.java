@@ -0,0 +1,74 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+	// 8 buckets of 100 ms: one revolution is 800 ms
+	private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, 0);
+
+	@Test
+	void expiresOnTheTickHoldingTheDeadline() {
+		wheel.schedule("a", 250);
+
+		assertTrue(wheel.advanceTo(299).isEmpty());
+		assertEquals(List.of("a"), wheel.advanceTo(300));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void keepsTimeoutsSeveralRevolutionsAwayUntilTheirRound() {
+		wheel.schedule("later", 2_500);
+		wheel.schedule("soon", 100);
+
+		assertEquals(List.of("soon"), wheel.advanceTo(100));
+		for (long now = 200; now < 2_500; now += 100) {
+			assertTrue(wheel.advanceTo(now).isEmpty(), "expired early at " + now);
+		}
+		assertEquals(List.of("later"), wheel.advanceTo(2_500));
+	}
+
+	@Test
+	void pastDeadlinesExpireOnTheNextTick() {
+		wheel.advanceTo(1_000);
+		wheel.schedule("overdue", 200);
+
+		assertEquals(1, wheel.size());
+		assertEquals(List.of("overdue"), wheel.advanceTo(1_100));
+	}
+
+	@Test
+	void longPauseExpiresEveryOverdueTimeoutInOnePass() {
+		wheel.schedule("a", 100);
+		wheel.schedule("b", 750);
+		wheel.schedule("c", 1_900);
+		wheel.schedule("d", 5_000);
+
+		List<String> expired = wheel.advanceTo(3_000);
+
+		assertEquals(3, expired.size());
+		assertTrue(expired.containsAll(List.of("a", "b", "c")));
+		assertEquals(1, wheel.size());
+		assertEquals(List.of("d"), wheel.advanceTo(5_000));
+	}
+
+	@Test
+	void clockNeverMovesBackwards() {
+		wheel.advanceTo(1_000);
+		wheel.schedule("a", 1_200);
+
+		assertTrue(wheel.advanceTo(500).isEmpty());
+		assertEquals(List.of("a"), wheel.advanceTo(1_200));
+	}
+
+	@Test
+	void rejectsWheelSizesThatAreNotAPowerOfTwo() {
+		assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(100, 6, 0));
+	}
+}
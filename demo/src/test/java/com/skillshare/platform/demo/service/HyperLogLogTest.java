@@ -0,0 +1,72 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HyperLogLogTest {
+
+	@Test
+	void emptySketchEstimatesZero() {
+		assertEquals(0, new HyperLogLog().estimate());
+	}
+
+	@Test
+	void smallCardinalitiesAreNearlyExact() {
+		assertEquals(1, sketchOf(0, 1).estimate());
+		assertEquals(10, sketchOf(0, 10).estimate());
+		for (int distinct : new int[]{100, 500}) {
+			assertEquals(0, meanRelativeError(distinct), 0.03, "distinct " + distinct);
+		}
+	}
+
+	@Test
+	void replayingIdsNeverInflatesTheEstimate() {
+		HyperLogLog sketch = sketchOf(0, 1_000);
+		long before = sketch.estimate();
+
+		for (int round = 0; round < 5; round++) {
+			for (long id = 0; id < 1_000; id++) {
+				sketch.add(id);
+			}
+		}
+
+		assertEquals(before, sketch.estimate());
+	}
+
+	@Test
+	void staysAccurateAcrossTheLinearCountingSwitchover() {
+		// Linear counting hands over to the raw estimate at 2.5 * 1024 registers
+		for (int distinct = 2_000; distinct <= 3_500; distinct += 250) {
+			assertEquals(0, meanRelativeError(distinct), 0.05, "distinct " + distinct);
+		}
+	}
+
+	@Test
+	void largeCardinalitiesStayWithinThreeStandardErrors() {
+		for (int distinct : new int[]{10_000, 100_000, 1_000_000}) {
+			HyperLogLog sketch = sketchOf(-distinct, distinct);
+
+			assertEquals(distinct, sketch.estimate(), distinct * 0.10, "distinct " + distinct);
+		}
+	}
+
+	// Averaged over disjoint id sets, so one unlucky set of hashes does not decide the test
+	private static double meanRelativeError(int distinct) {
+		int sketches = 50;
+		double total = 0;
+		for (int i = 0; i < sketches; i++) {
+			long estimate = sketchOf(100_000_000L * i, distinct).estimate();
+			total += Math.abs(estimate - distinct) / (double) distinct;
+		}
+		return total / sketches;
+	}
+
+	private static HyperLogLog sketchOf(long firstId, int distinct) {
+		HyperLogLog sketch = new HyperLogLog();
+		for (long id = firstId; id < firstId + distinct; id++) {
+			sketch.add(id);
+		}
+		return sketch;
+	}
+}
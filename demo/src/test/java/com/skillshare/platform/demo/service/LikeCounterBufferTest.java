@@ -0,0 +1,241 @@
+package com.skillshare.platform.demo.service;
+
+import com.skillshare.platform.demo.repository.PostRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LikeCounterBufferTest {
+
+	private final LikesTable posts = new LikesTable();
+	private final PostRepository postRepository = mock(PostRepository.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private LikeCounterBuffer buffer;
+
+	@BeforeEach
+	void setUp() {
+		when(postRepository.findLikesCountById(anyLong()))
+				.thenAnswer(invocation -> Optional.of((int) posts.likesCount(invocation.getArgument(0))));
+		buffer = new LikeCounterBuffer(posts, postRepository, meterRegistry);
+		ReflectionTestUtils.setField(buffer, "maxStalenessMs", 60_000L);
+	}
+
+	@Test
+	void flushesEveryPostsDeltaInOneBatch() {
+		buffer.record(1L, 1);
+		buffer.record(1L, 1);
+		buffer.record(1L, 1);
+		buffer.record(2L, -1);
+		posts.likes.put(2L, 5L);
+
+		buffer.flush();
+
+		assertEquals(1, posts.batches.get());
+		assertEquals(3, posts.likesCount(1L));
+		assertEquals(4, posts.likesCount(2L));
+		assertEquals(0, buffer.pendingDelta(1L));
+		assertEquals(0, buffer.pendingDelta(2L));
+	}
+
+	@Test
+	void keepsDeltasPendingWhenTheBatchFails() {
+		buffer.record(1L, 2);
+		posts.failing = true;
+
+		buffer.flush();
+
+		assertEquals(0, posts.likesCount(1L));
+		assertEquals(2, buffer.pendingDelta(1L));
+		assertEquals(2, buffer.currentCount(1L));
+
+		posts.failing = false;
+		buffer.flush();
+
+		assertEquals(2, posts.likesCount(1L));
+		assertEquals(0, buffer.pendingDelta(1L));
+		assertEquals(2, buffer.currentCount(1L));
+	}
+
+	@Test
+	void likesRecordedDuringAFlushWaitForTheNextOne() {
+		buffer.record(1L, 1);
+		posts.duringBatch = () -> buffer.record(1L, 1);
+
+		buffer.flush();
+
+		assertEquals(1, posts.likesCount(1L));
+		assertEquals(1, buffer.pendingDelta(1L));
+
+		posts.duringBatch = null;
+		buffer.flush();
+
+		assertEquals(2, posts.likesCount(1L));
+	}
+
+	@Test
+	void cachedCountFollowsAFlushWithoutCountingTheDeltaTwice() {
+		posts.likes.put(1L, 10L);
+		buffer.record(1L, 2);
+		assertEquals(12, buffer.currentCount(1L));
+
+		buffer.flush();
+
+		assertEquals(12, posts.likesCount(1L));
+		assertEquals(12, buffer.currentCount(1L));
+	}
+
+	@Test
+	void readerLoadingDuringAFlushNeverCountsTheDeltaTwice() throws Exception {
+		// Nothing cached yet, so the racing read below loads the count the batch just wrote
+		posts.likes.put(1L, 10L);
+		buffer.record(1L, 2);
+		AtomicLong seen = new AtomicLong();
+		AtomicBoolean readDuringBatch = new AtomicBoolean();
+		posts.duringBatch = () -> {
+			Thread reader = new Thread(() -> seen.set(buffer.currentCount(1L)));
+			reader.start();
+			try {
+				reader.join(200);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			readDuringBatch.set(!reader.isAlive());
+			posts.reader = reader;
+		};
+
+		buffer.flush();
+		posts.reader.join();
+
+		assertFalse(readDuringBatch.get(), "a read completed between the batch and moving its deltas");
+		assertEquals(12, seen.get());
+		assertEquals(12, buffer.currentCount(1L));
+	}
+
+	@Test
+	void evictsAPostOnlyAfterSeveralIdleFlushes() {
+		buffer.record(1L, 1);
+		buffer.flush();
+		buffer.flush();
+		buffer.flush();
+		assertEquals(1.0, meterRegistry.get("likes.counter.pending").gauge().value());
+
+		buffer.flush();
+		assertEquals(0.0, meterRegistry.get("likes.counter.pending").gauge().value());
+
+		buffer.record(1L, 1);
+		buffer.flush();
+		assertEquals(2, posts.likesCount(1L));
+	}
+
+	@Test
+	void noLikeIsLostWhileFlushesAndEvictionsRun() throws Exception {
+		int threads = 4;
+		int likesPerThread = 20_000;
+		AtomicLong evictions = new AtomicLong();
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> likers = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			long seed = t;
+			Thread liker = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < likesPerThread; i++) {
+					// One hot post, plus cold ones liked in bursts that go idle and get evicted
+					// between them
+					buffer.record(i % 2 == 0 ? 1L : 100L + seed * 1000 + (i / 2000) % 5, 1);
+					if (i % 2000 == 1999) {
+						try {
+							Thread.sleep(100);
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+				}
+			});
+			liker.start();
+			likers.add(liker);
+		}
+
+		AtomicBoolean done = new AtomicBoolean();
+		Thread flusher = new Thread(() -> {
+			while (!done.get()) {
+				double before = meterRegistry.get("likes.counter.pending").gauge().value();
+				buffer.flush();
+				if (meterRegistry.get("likes.counter.pending").gauge().value() < before) {
+					evictions.incrementAndGet();
+				}
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		});
+		flusher.start();
+		start.countDown();
+		for (Thread liker : likers) {
+			liker.join();
+		}
+		done.set(true);
+		flusher.join();
+		buffer.flush();
+
+		assertTrue(evictions.get() > 0, "no post was evicted during the run");
+		long total = posts.likes.values().stream().mapToLong(Long::longValue).sum();
+		assertEquals((long) threads * likesPerThread, total);
+		assertEquals((long) threads * likesPerThread / 2, posts.likesCount(1L));
+	}
+
+	// posts.likes_count, updated by the buffer's flush batches
+	private static final class LikesTable extends JdbcTemplate {
+		private final Map<Long, Long> likes = new ConcurrentHashMap<>();
+		private final AtomicLong batches = new AtomicLong();
+		private volatile boolean failing;
+		private volatile Runnable duringBatch;
+		private volatile Thread reader;
+
+		long likesCount(Long postId) {
+			return likes.getOrDefault(postId, 0L);
+		}
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+			if (failing) {
+				throw new DataAccessResourceFailureException("connection reset");
+			}
+			batches.incrementAndGet();
+			int[] counts = new int[batchArgs.size()];
+			for (int i = 0; i < counts.length; i++) {
+				likes.merge((Long) batchArgs.get(i)[1], (Long) batchArgs.get(i)[0], Long::sum);
+				counts[i] = 1;
+			}
+			Runnable hook = duringBatch;
+			if (hook != null) {
+				hook.run();
+			}
+			return counts;
+		}
+	}
+}
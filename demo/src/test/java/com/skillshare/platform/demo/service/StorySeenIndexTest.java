@@ -0,0 +1,104 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorySeenIndexTest {
+
+	private final StoryTable stories = new StoryTable(10_000L);
+	private final StorySeenIndex index = new StorySeenIndex(stories);
+
+	@Test
+	void returnsOnlyTheStoriesTheViewerHasSeen() {
+		index.markSeen(1L, 10_000L);
+		index.markSeen(1L, 10_070L);
+		index.markSeen(2L, 10_001L);
+
+		assertEquals(Set.of(10_000L, 10_070L), index.seenAmong(1L, List.of(10_000L, 10_001L, 10_070L, 20_000L)));
+		assertEquals(Set.of(10_001L), index.seenAmong(2L, List.of(10_000L, 10_001L)));
+		assertTrue(index.seenAmong(3L, List.of(10_000L)).isEmpty());
+		assertTrue(index.seenAmong(null, List.of(10_000L)).isEmpty());
+	}
+
+	@Test
+	void ignoresStoriesOlderThanTheBase() {
+		index.markSeen(1L, 9_999L);
+
+		assertTrue(index.seenAmong(1L, List.of(9_999L)).isEmpty());
+	}
+
+	@Test
+	void smallMovesOfTheBaseDoNotShift() {
+		index.markSeen(1L, 10_000L);
+		index.markSeen(1L, 10_500L);
+		stories.minActiveId = 10_400L;
+
+		index.rebase();
+
+		// Still below the rebase step, so the expired mark is kept but harmless
+		assertEquals(Set.of(10_000L, 10_500L), index.seenAmong(1L, List.of(10_000L, 10_500L)));
+	}
+
+	@Test
+	void rebaseShiftsMarksDownAndDropsExpiredOnes() {
+		index.markSeen(1L, 10_000L);
+		index.markSeen(1L, 12_999L);
+		index.markSeen(1L, 13_000L);
+		index.markSeen(1L, 15_321L);
+		index.markSeen(2L, 10_500L);
+		stories.minActiveId = 13_000L;
+
+		index.rebase();
+
+		assertEquals(Set.of(13_000L, 15_321L),
+				index.seenAmong(1L, List.of(10_000L, 12_999L, 13_000L, 13_001L, 15_321L)));
+		assertTrue(index.seenAmong(2L, List.of(10_500L)).isEmpty());
+
+		index.markSeen(2L, 13_001L);
+		assertEquals(Set.of(13_001L), index.seenAmong(2L, List.of(13_000L, 13_001L)));
+	}
+
+	@Test
+	void rebasesPastTheLastStoryWhenNoneIsActive() {
+		index.markSeen(1L, 10_000L);
+		stories.minActiveId = null;
+		stories.maxId = 12_000L;
+
+		index.rebase();
+
+		assertTrue(index.seenAmong(1L, List.of(10_000L)).isEmpty());
+		index.markSeen(1L, 12_001L);
+		assertEquals(Set.of(12_001L), index.seenAmong(1L, List.of(12_001L)));
+	}
+
+	// Answers the index's two id lookups; story_viewers starts out empty
+	private static final class StoryTable extends JdbcTemplate {
+		private Long minActiveId;
+		private Long maxId;
+
+		StoryTable(Long minActiveId) {
+			this.minActiveId = minActiveId;
+		}
+
+		@Override
+		public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+			return queryForObject(sql, requiredType);
+		}
+
+		@Override
+		public <T> T queryForObject(String sql, Class<T> requiredType) {
+			return requiredType.cast(sql.contains("MIN(id)") ? minActiveId : maxId);
+		}
+
+		@Override
+		public void query(String sql, RowCallbackHandler rch, Object... args) {
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.skillshare.platform.demo.service;
+
+import com.skillshare.platform.demo.dto.FeedEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimelineServiceTest {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+	@Test
+	void mergesSourcesNewestFirst() {
+		List<FeedEntry> materialized = List.of(entry(9, 9), entry(6, 6), entry(2, 2));
+		List<FeedEntry> pulledA = List.of(entry(8, 8), entry(5, 5), entry(1, 1));
+		List<FeedEntry> pulledB = List.of(entry(7, 7), entry(4, 4), entry(3, 3));
+
+		List<FeedEntry> merged = TimelineService.mergeNewestFirst(List.of(materialized, pulledA, pulledB), 10);
+
+		assertEquals(List.of(9L, 8L, 7L, 6L, 5L, 4L, 3L, 2L, 1L), postIds(merged));
+	}
+
+	@Test
+	void breaksTimestampTiesByPostId() {
+		List<FeedEntry> first = List.of(entry(3, 5), entry(1, 5));
+		List<FeedEntry> second = List.of(entry(4, 5), entry(2, 5));
+
+		List<FeedEntry> merged = TimelineService.mergeNewestFirst(List.of(first, second), 10);
+
+		assertEquals(List.of(4L, 3L, 2L, 1L), postIds(merged));
+	}
+
+	@Test
+	void dropsPostsPresentInSeveralSources() {
+		// A post fanned out just before its author was switched to pull shows up twice
+		List<FeedEntry> materialized = List.of(entry(5, 5), entry(3, 3));
+		List<FeedEntry> pulled = List.of(entry(5, 5), entry(4, 4), entry(3, 3));
+
+		List<FeedEntry> merged = TimelineService.mergeNewestFirst(List.of(materialized, pulled), 10);
+
+		assertEquals(List.of(5L, 4L, 3L), postIds(merged));
+	}
+
+	@Test
+	void stopsAtLimitAndSkipsEmptySources() {
+		List<FeedEntry> materialized = List.of(entry(6, 6), entry(4, 4), entry(2, 2));
+		List<FeedEntry> pulled = List.of(entry(5, 5), entry(3, 3), entry(1, 1));
+
+		List<FeedEntry> merged = TimelineService.mergeNewestFirst(List.of(List.of(), materialized, pulled), 4);
+
+		assertEquals(List.of(6L, 5L, 4L, 3L), postIds(merged));
+		assertTrue(TimelineService.mergeNewestFirst(List.of(List.of(), List.of()), 4).isEmpty());
+	}
+
+	private static FeedEntry entry(long postId, int minute) {
+		return new FeedEntry(postId, NOW.plusMinutes(minute));
+	}
+
+	private static List<Long> postIds(List<FeedEntry> entries) {
+		return entries.stream().map(FeedEntry::getPostId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,190 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class UploadShardMigratorTest {
+
+	@TempDir
+	Path uploadDir;
+
+	private final UrlTables tables = new UrlTables();
+	private FileStorageService storage;
+	private UploadShardMigrator migrator;
+
+	@BeforeEach
+	void setUp() {
+		storage = new FileStorageService(uploadDir.toString(), "uploads", 1, 1, true, mock(StoredBlobRegistry.class));
+		// A page size of two makes every table take several keyset pages
+		migrator = new UploadShardMigrator(storage, tables, true, 2, 2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		migrator.shutdown();
+		storage.shutdown();
+	}
+
+	@Test
+	void movesFlatFilesAndRewritesTheirUrlsInEveryTable() throws Exception {
+		flatFiles("a.jpg", "a_feed_480.jpg", "b.png", "c.mp4", "d.jpg");
+		tables.insert("media", 1L, "url", "/uploads/c.mp4");
+		tables.insert("media", 2L, "url", "/uploads/a.jpg");
+		tables.insert("media", 5L, "url", "/uploads/c.mp4");
+		tables.insert("stories", 3L, "media_url", "/uploads/d.jpg");
+		tables.insert("users", 1L, "avatar_url", "/uploads/b.png", "cover_image", "/uploads/a.jpg");
+		tables.insert("users", 2L, "avatar_url", null, "cover_image", "/uploads/b.png");
+		tables.insert("users", 7L, "avatar_url", "/uploads/d.jpg", "cover_image", null);
+		tables.insert("image_variants", 4L, "original_url", "/uploads/a.jpg", "url", "/uploads/a_feed_480.jpg");
+
+		assertEquals(5, migrator.migrate());
+
+		assertEquals(sharded("c.mp4"), tables.get("media", 1L, "url"));
+		assertEquals(sharded("a.jpg"), tables.get("media", 2L, "url"));
+		assertEquals(sharded("c.mp4"), tables.get("media", 5L, "url"));
+		assertEquals(sharded("d.jpg"), tables.get("stories", 3L, "media_url"));
+		assertEquals(sharded("b.png"), tables.get("users", 1L, "avatar_url"));
+		assertEquals(sharded("a.jpg"), tables.get("users", 1L, "cover_image"));
+		assertNull(tables.get("users", 2L, "avatar_url"));
+		assertEquals(sharded("b.png"), tables.get("users", 2L, "cover_image"));
+		assertEquals(sharded("d.jpg"), tables.get("users", 7L, "avatar_url"));
+		assertEquals(sharded("a.jpg"), tables.get("image_variants", 4L, "original_url"));
+		assertEquals(sharded("a_feed_480.jpg"), tables.get("image_variants", 4L, "url"));
+		for (String name : List.of("a.jpg", "a_feed_480.jpg", "b.png", "c.mp4", "d.jpg")) {
+			assertFalse(Files.exists(uploadDir.resolve(name)), name);
+			assertTrue(Files.isRegularFile(storage.resolveStoredUrl(sharded(name))), name);
+		}
+	}
+
+	@Test
+	void leavesUrlsThatAreNotFlatUploadsAlone() throws Exception {
+		flatFiles("a.jpg");
+		String alreadySharded = sharded("z.jpg");
+		tables.insert("media", 1L, "url", "https://cdn.example.com/uploads/a.jpg");
+		tables.insert("media", 2L, "url", "/uploads/missing.jpg");
+		tables.insert("media", 3L, "url", alreadySharded);
+		tables.insert("media", 4L, "url", "/uploads/ephemeral/2030010112/a.jpg");
+		tables.insert("stories", 1L, "media_url", "/static/a.jpg");
+
+		assertEquals(1, migrator.migrate());
+
+		assertEquals("https://cdn.example.com/uploads/a.jpg", tables.get("media", 1L, "url"));
+		assertEquals("/uploads/missing.jpg", tables.get("media", 2L, "url"));
+		assertEquals(alreadySharded, tables.get("media", 3L, "url"));
+		assertEquals("/uploads/ephemeral/2030010112/a.jpg", tables.get("media", 4L, "url"));
+		assertEquals("/static/a.jpg", tables.get("stories", 1L, "media_url"));
+		assertEquals(0, tables.updates);
+	}
+
+	@Test
+	void secondRunRewritesUrlsOfFilesAnInterruptedRunMoved() throws Exception {
+		flatFiles("a.jpg", "b.jpg");
+		tables.insert("media", 1L, "url", "/uploads/a.jpg");
+		tables.insert("media", 2L, "url", "/uploads/b.jpg");
+		// The first run moved a.jpg and stopped before rewriting any URL
+		storage.moveToShard("a.jpg");
+
+		assertEquals(1, migrator.migrate());
+
+		assertEquals(sharded("a.jpg"), tables.get("media", 1L, "url"));
+		assertEquals(sharded("b.jpg"), tables.get("media", 2L, "url"));
+	}
+
+	@Test
+	void finishedMigrationChangesNothingWhenRunAgain() throws Exception {
+		flatFiles("a.jpg");
+		tables.insert("media", 1L, "url", "/uploads/a.jpg");
+		migrator.migrate();
+		int updates = tables.updates;
+
+		assertEquals(0, migrator.migrate());
+
+		assertEquals(updates, tables.updates);
+		assertEquals(sharded("a.jpg"), tables.get("media", 1L, "url"));
+	}
+
+	private void flatFiles(String... names) throws Exception {
+		for (String name : names) {
+			Files.write(uploadDir.resolve(name), name.getBytes());
+		}
+	}
+
+	private static String sharded(String name) {
+		return "/uploads/" + FileStorageService.shardPrefixOf(name) + name;
+	}
+
+	// In-memory tables answering the migrator's keyset reads and updates by id
+	private static final class UrlTables extends JdbcTemplate {
+		private static final Pattern SELECT = Pattern.compile("SELECT id, (.+) FROM (\\w+) WHERE id > \\? ORDER BY id LIMIT \\?");
+		private static final Pattern UPDATE = Pattern.compile("UPDATE (\\w+) SET (\\w+) = \\? WHERE id = \\?");
+
+		private final Map<String, TreeMap<Long, Map<String, Object>>> rows = new HashMap<>();
+		private int updates;
+
+		void insert(String table, long id, Object... columnsAndValues) {
+			Map<String, Object> row = new HashMap<>();
+			for (int i = 0; i < columnsAndValues.length; i += 2) {
+				row.put((String) columnsAndValues[i], columnsAndValues[i + 1]);
+			}
+			rows.computeIfAbsent(table, key -> new TreeMap<>()).put(id, row);
+		}
+
+		Object get(String table, long id, String column) {
+			return rows.get(table).get(id).get(column);
+		}
+
+		@Override
+		public List<Map<String, Object>> queryForList(String sql, Object... args) {
+			Matcher select = SELECT.matcher(sql);
+			assertTrue(select.matches(), sql);
+			List<Map<String, Object>> page = new ArrayList<>();
+			TreeMap<Long, Map<String, Object>> table = rows.getOrDefault(select.group(2), new TreeMap<>());
+			for (Map.Entry<Long, Map<String, Object>> row : table.tailMap((Long) args[0], false).entrySet()) {
+				if (page.size() == (Integer) args[1]) {
+					break;
+				}
+				Map<String, Object> result = new LinkedHashMap<>();
+				result.put("id", row.getKey());
+				for (String column : select.group(1).split(", ")) {
+					result.put(column, row.getValue().get(column));
+				}
+				page.add(result);
+			}
+			return page;
+		}
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+			Matcher update = UPDATE.matcher(sql);
+			assertTrue(update.matches(), sql);
+			int[] counts = new int[batchArgs.size()];
+			for (int i = 0; i < counts.length; i++) {
+				Object[] args = batchArgs.get(i);
+				rows.get(update.group(1)).get((Long) args[1]).put(update.group(2), args[0]);
+				counts[i] = 1;
+				updates++;
+			}
+			return counts;
+		}
+	}
+}
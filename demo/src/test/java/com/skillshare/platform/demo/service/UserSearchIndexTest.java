@@ -0,0 +1,92 @@
+package com.skillshare.platform.demo.service;
+
+import com.skillshare.platform.demo.dto.AuthorSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class UserSearchIndexTest {
+
+	private final FollowerLeaderboard leaderboard = new FollowerLeaderboard(mock(JdbcTemplate.class));
+	private final UserSearchIndex index = new UserSearchIndex(mock(JdbcTemplate.class), leaderboard);
+	private final List<AuthorSummary> users = new ArrayList<>();
+
+	@Test
+	void ranksExactUsernameThenUsernamePrefixThenFollowers() {
+		add(1L, "anna", "Anna Smith", 5);
+		add(2L, "annabel", "Annabel Lee", 50);
+		add(3L, "jsmith", "Anna Jones", 500);
+		add(4L, "ann", "Ann Other", 0);
+
+		assertEquals(List.of(4L, 2L, 1L, 3L), ids(index.search("ann", 10)));
+		assertEquals(List.of(1L, 2L, 3L), ids(index.search("Anna", 10)));
+		assertEquals(List.of(4L, 2L), ids(index.search("ann", 2)));
+	}
+
+	@Test
+	void matchesNameWordsWithoutAccents() {
+		add(1L, "jd", "Jos\u00e9 D\u00edaz", 3);
+
+		assertEquals(List.of(1L), ids(index.search("diaz", 5)));
+		assertEquals(List.of(1L), ids(index.search("JOSE", 5)));
+		assertTrue(index.search("z", 5).isEmpty());
+	}
+
+	@Test
+	void densePrefixesRankEveryMatchBeforeCutting() {
+		Random random = new Random(7);
+		List<Integer> followerCounts = new ArrayList<>();
+		for (int i = 0; i < 3_000; i++) {
+			followerCounts.add(i);
+		}
+		Collections.shuffle(followerCounts, random);
+		for (int i = 0; i < 3_000; i++) {
+			String username = (i % 3 == 0 ? "sam" : i % 3 == 1 ? "max" : "user") + i;
+			String name = i % 7 == 0 ? "Samuel " + i : "Someone " + i;
+			add(i + 1L, username, name, followerCounts.get(i));
+		}
+		// Popular users that match dense prefixes by name only
+		add(5_000L, "zed", "Samantha Star", 100_000);
+		add(5_001L, "sa", "Exact Match", 0);
+
+		for (String prefix : List.of("s", "sa", "sam", "m", "u", "so", "some")) {
+			assertEquals(ids(bruteForce(prefix, 8)), ids(index.search(prefix, 8)), "prefix " + prefix);
+		}
+	}
+
+	private void add(Long id, String username, String name, int followers) {
+		AuthorSummary summary = new AuthorSummary(id, username, name, null);
+		users.add(summary);
+		index.index(summary);
+		leaderboard.adjust(id, followers);
+	}
+
+	private List<AuthorSummary> bruteForce(String prefix, int limit) {
+		Comparator<AuthorSummary> ranking = Comparator
+				.comparing((AuthorSummary s) -> !UserSearchIndex.normalize(s.getUsername()).equals(prefix))
+				.thenComparing(s -> !UserSearchIndex.normalize(s.getUsername()).startsWith(prefix))
+				.thenComparing(s -> -leaderboard.followers(s.getId()))
+				.thenComparing(s -> s.getUsername().length());
+		return users.stream()
+				.filter(s -> UserSearchIndex.normalize(s.getUsername()).startsWith(prefix)
+						|| Arrays.stream(UserSearchIndex.normalize(s.getName()).split(" ")).anyMatch(w -> w.startsWith(prefix)))
+				.sorted(ranking)
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	private static List<Long> ids(List<AuthorSummary> summaries) {
+		return summaries.stream().map(AuthorSummary::getId).collect(Collectors.toList());
+	}
+}